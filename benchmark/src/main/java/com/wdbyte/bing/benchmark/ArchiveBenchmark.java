@@ -0,0 +1,72 @@
+package com.wdbyte.bing.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.store.MarkdownArchive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 归档读取：二进制归档扫描、markdown 解析转换和按日期查找
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int days;
+
+    private RegionContext context;
+    private MarkdownArchive archive;
+
+    @Setup
+    public void setup() throws IOException {
+        context = SyntheticSite.createRegions(1, days).get(0);
+        archive = BingFileUtils.getBingArchive(context);
+    }
+
+    /**
+     * 通过内存映射的二进制归档读取全部记录
+     */
+    @Benchmark
+    public List<Images> readBing() throws IOException {
+        return BingFileUtils.readBing(context);
+    }
+
+    /**
+     * 解析 markdown 并重新生成二进制归档，即 markdown 被修改后的首次读取
+     */
+    @Benchmark
+    public int convertMarkdown() throws IOException {
+        return archive.convert();
+    }
+
+    @Benchmark
+    public List<Images> find() throws IOException {
+        String date = LocalDate.of(2026, 10, 16).minusDays(ThreadLocalRandom.current().nextInt(days)).toString();
+        return archive.find(date);
+    }
+}
@@ -0,0 +1,58 @@
+package com.wdbyte.bing.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * 输出每次调用的文件操作次数，只统计 {@link CountingFileSystem} 路径上的操作
+ * <p>
+ * 使用方式：java -jar target/benchmarks.jar MarkdownFileOpsBenchmark -prof com.wdbyte.bing.benchmark.FileOpsProfiler
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class FileOpsProfiler implements InternalProfiler {
+
+    private long opens;
+    private long reads;
+    private long writes;
+    private long bytesWritten;
+
+    @Override
+    public String getDescription() {
+        return "File open/read/write calls per operation on CountingFileSystem paths";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        opens = CountingFileSystem.OPENS.get();
+        reads = CountingFileSystem.READS.get();
+        writes = CountingFileSystem.WRITES.get();
+        bytesWritten = CountingFileSystem.BYTES_WRITTEN.get();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+        IterationParams iterationParams, IterationResult result) {
+        long ops = Math.max(1, result.getMetadata().getAllOps());
+        List<Result> results = new ArrayList<>(4);
+        results.add(perOp("fs.open", CountingFileSystem.OPENS.get() - opens, ops, "#/op"));
+        results.add(perOp("fs.read", CountingFileSystem.READS.get() - reads, ops, "#/op"));
+        results.add(perOp("fs.write", CountingFileSystem.WRITES.get() - writes, ops, "#/op"));
+        results.add(perOp("fs.bytesWritten", CountingFileSystem.BYTES_WRITTEN.get() - bytesWritten, ops, "B/op"));
+        return results;
+    }
+
+    private static Result perOp(String label, long count, long ops, String unit) {
+        return new ScalarResult(label, (double)count / ops, unit, AggregationPolicy.AVG);
+    }
+}
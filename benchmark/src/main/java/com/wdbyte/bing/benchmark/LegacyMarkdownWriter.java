@@ -0,0 +1,100 @@
+package com.wdbyte.bing.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+
+/**
+ * 改为内存中拼接之前的 writeReadme、writeMonthInfo，作为 {@link MarkdownFileOpsBenchmark} 的对照
+ * <p>
+ * 除了路径改为从 {@link RegionContext} 读取，逻辑与原实现一致：每一段内容单独调用一次 Files.write 追加，
+ * 内容没有变化时也全部重写。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LegacyMarkdownWriter {
+
+    public static void writeReadme(RegionContext context, List<Images> imgList) throws IOException {
+        Path readmePath = context.getReadmePath();
+        if (!Files.exists(readmePath)) {
+            Files.createFile(readmePath);
+        }
+        List<Images> imagesList;
+        if (imgList.size() > 30) {
+            imagesList = imgList.subList(0, 30);
+        } else {
+            imagesList = imgList;
+        }
+        writeFile(readmePath, imagesList, null);
+
+        Files.write(readmePath, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+        // 归档
+        Files.write(readmePath, "### 历史归档：".getBytes(), StandardOpenOption.APPEND);
+        Files.write(readmePath, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+        List<String> dateList = imgList.stream()
+            .map(Images::getDate)
+            .map(date -> date.substring(0, 7))
+            .distinct()
+            .collect(Collectors.toList());
+        int i = 0;
+        for (String date : dateList) {
+            String link = String.format("[%s](/%s/%s/) | ", date, context.getMonthPath().toString(), date);
+            Files.write(readmePath, link.getBytes(), StandardOpenOption.APPEND);
+            i++;
+            if (i % 8 == 0) {
+                Files.write(readmePath, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+            }
+        }
+    }
+
+    public static void writeMonthInfo(RegionContext context, List<Images> imgList) throws IOException {
+        Map<String, List<Images>> monthMap = BingFileUtils.convertImgListToMonthMap(imgList);
+        for (String key : monthMap.keySet()) {
+            Path path = context.getMonthPath().resolve(key);
+            if (!Files.exists(path)) {
+                Files.createDirectories(path);
+            }
+            path = path.resolve("README.md");
+            writeFile(path, monthMap.get(key), key);
+        }
+    }
+
+    private static void writeFile(Path path, List<Images> imagesList, String name) throws IOException {
+        if (!Files.exists(path)) {
+            Files.createFile(path);
+        }
+        String title = "## Bing Wallpaper";
+        if (name != null) {
+            title = "## Bing Wallpaper (" + name + ")";
+        }
+        Files.write(path, title.getBytes());
+        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+        Files.write(path, imagesList.get(0).toLarge().getBytes(), StandardOpenOption.APPEND);
+        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+        Files.write(path, "|      |      |      |".getBytes(), StandardOpenOption.APPEND);
+        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+        Files.write(path, "| :----: | :----: | :----: |".getBytes(), StandardOpenOption.APPEND);
+        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+        int i = 1;
+        for (Images images : imagesList) {
+            Files.write(path, ("|" + images.toString()).getBytes(), StandardOpenOption.APPEND);
+            if (i % 3 == 0) {
+                Files.write(path, "|".getBytes(), StandardOpenOption.APPEND);
+                Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+            }
+            i++;
+        }
+        if (i % 3 != 1) {
+            Files.write(path, "|".getBytes(), StandardOpenOption.APPEND);
+        }
+    }
+}
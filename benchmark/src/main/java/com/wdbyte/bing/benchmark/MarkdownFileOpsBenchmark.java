@@ -0,0 +1,91 @@
+package com.wdbyte.bing.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * writeReadme、writeMonthInfo 改造前后的耗时和文件操作次数
+ * <p>
+ * impl 为 before 时使用 {@link LegacyMarkdownWriter}，为 after 时使用 {@link BingFileUtils}；
+ * 地区的路径都经过 {@link CountingFileSystem}，配合 {@link FileOpsProfiler} 输出每次调用的 open、write 次数：
+ * java -jar target/benchmarks.jar MarkdownFileOpsBenchmark -prof com.wdbyte.bing.benchmark.FileOpsProfiler
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class MarkdownFileOpsBenchmark {
+
+    @Param({"before", "after"})
+    public String impl;
+
+    @Param({"1000", "10000"})
+    public int days;
+
+    @Param({"false", "true"})
+    public boolean changed;
+
+    private RegionContext context;
+    private List<Images> imagesList;
+    private List<Images> otherImagesList;
+    private boolean flip;
+
+    @Setup
+    public void setup() throws IOException {
+        RegionContext region = SyntheticSite.region("bench-fileops");
+        context = new RegionContext(region.getRegion(), CountingFileSystem.wrap(region.getReadmePath()),
+            CountingFileSystem.wrap(region.getBingPath()), CountingFileSystem.wrap(region.getMonthPath()),
+            CountingFileSystem.wrap(region.getHtmlRoot()), CountingFileSystem.wrap(region.getCacheRoot()));
+        Files.createDirectories(context.getMonthPath());
+        imagesList = SyntheticSite.images(context.getRegion(), days);
+        otherImagesList = SyntheticSite.images(context.getRegion() + "-other", days);
+    }
+
+    private List<Images> next() {
+        if (!changed) {
+            return imagesList;
+        }
+        flip = !flip;
+        return flip ? otherImagesList : imagesList;
+    }
+
+    @Benchmark
+    public void writeReadme() throws IOException {
+        if ("before".equals(impl)) {
+            LegacyMarkdownWriter.writeReadme(context, next());
+        } else {
+            BingFileUtils.writeReadme(context, next());
+        }
+    }
+
+    @Benchmark
+    public void writeMonthInfo() throws IOException {
+        if ("before".equals(impl)) {
+            LegacyMarkdownWriter.writeMonthInfo(context, next());
+        } else {
+            BingFileUtils.writeMonthInfo(context, next());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.wdbyte.bing.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * markdown 写入：README、月度 README 和整个归档重写
+ * <p>
+ * 内容不变时 writeReadme、writeMonthInfo 只比较不写入；changed 为 true 时每次调用交替使用两份不同的数据，
+ * 测量真正写入的开销。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarkdownWriteBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int days;
+
+    @Param({"false", "true"})
+    public boolean changed;
+
+    private RegionContext context;
+    private List<Images> imagesList;
+    private List<Images> otherImagesList;
+    private boolean flip;
+
+    @Setup
+    public void setup() throws IOException {
+        context = SyntheticSite.createRegions(1, days).get(0);
+        imagesList = BingFileUtils.readBing(context);
+        otherImagesList = SyntheticSite.images(context.getRegion() + "-other", days);
+    }
+
+    private List<Images> next() {
+        if (!changed) {
+            return imagesList;
+        }
+        flip = !flip;
+        return flip ? otherImagesList : imagesList;
+    }
+
+    @Benchmark
+    public void writeReadme() throws IOException {
+        BingFileUtils.writeReadme(context, next());
+    }
+
+    @Benchmark
+    public void writeMonthInfo() throws IOException {
+        BingFileUtils.writeMonthInfo(context, next());
+    }
+
+    /**
+     * 重写 bing-wallpaper.md 和二进制归档
+     */
+    @Benchmark
+    public void writeBing() throws IOException {
+        BingFileUtils.writeBing(context, next());
+    }
+}
@@ -0,0 +1,118 @@
+package com.wdbyte.bing.benchmark;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.html.HtmlConstant.ImgCard;
+import com.wdbyte.bing.html.HtmlConstant.ImgDetail;
+import com.wdbyte.bing.html.HtmlConstant.MonthHistory;
+import com.wdbyte.bing.html.HtmlConstant.Sidebar;
+import com.wdbyte.bing.html.HtmlFileUtils;
+import com.wdbyte.bing.html.HtmlTemplate;
+import com.wdbyte.bing.html.MonthNavigation;
+import com.wdbyte.bing.html.WebSiteGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 页面片段和整页渲染，只渲染到内存，不写文件
+ * <p>
+ * 原来的 replace* 方法已经由预编译模板取代，这里分别测量对应的片段：图片卡片、侧边目录、月度历史、详情页和月度页面。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"1000", "10000"})
+    public int days;
+
+    private WebSiteGenerator generator;
+    private Images image;
+    private List<Images> monthImages;
+    private String month;
+    private MonthNavigation navigation;
+    private HtmlTemplate indexTemplate;
+    private HtmlTemplate detailTemplate;
+    private final StringBuilder out = new StringBuilder(256 * 1024);
+
+    @Setup
+    public void setup() throws IOException {
+        RegionContext context = SyntheticSite.createRegions(1, days).get(0);
+        List<Images> imagesList = BingFileUtils.readBing(context);
+        Map<String, List<Images>> monthMap = BingFileUtils.convertImgListToMonthMap(imagesList);
+        generator = new WebSiteGenerator(context);
+        image = imagesList.get(0);
+        month = image.getMonth();
+        monthImages = monthMap.get(month);
+        navigation = generator.getNavigation(monthMap);
+        indexTemplate = HtmlFileUtils.getIndexTemplate();
+        detailTemplate = HtmlFileUtils.getDetailTemplate();
+    }
+
+    @Benchmark
+    public String imgCard() {
+        return ImgCard.getImgCard(image, "en-us");
+    }
+
+    @Benchmark
+    public String sidebarMenu() {
+        return Sidebar.getSidabarMenuList(month + ".html", month);
+    }
+
+    @Benchmark
+    public String monthHistory() {
+        return MonthHistory.getMonthHistory(month + ".html", month);
+    }
+
+    /**
+     * 所有月份的侧边目录和月度历史，当前月份高亮
+     */
+    @Benchmark
+    public int navigation() {
+        out.setLength(0);
+        navigation.sidebar(month).appendTo(out);
+        navigation.monthHistory(month).appendTo(out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int detailPage() {
+        Map<String, String> values = new HashMap<>(8);
+        values.put(ImgDetail.HEAD_TITLE, image.getDesc());
+        values.put(ImgDetail.IMG_URL, image.getSimpleUrl());
+        values.put(ImgDetail.IMG_DATE, image.getDate());
+        values.put(ImgDetail.IMG_DESC, image.getDesc());
+        out.setLength(0);
+        detailTemplate.render(out, values);
+        return out.length();
+    }
+
+    @Benchmark
+    public int monthPage() {
+        out.setLength(0);
+        generator.renderPage(out, indexTemplate, monthImages.get(0), month, navigation, monthImages);
+        return out.length();
+    }
+}
@@ -0,0 +1,91 @@
+package com.wdbyte.bing.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.html.WebSiteGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 整站生成：全量重建、没有变化时的增量生成，以及 images.json 合并
+ * <p>
+ * 全量重建会写入 地区数 x 天数 个详情页，使用 SingleShotTime 并减少迭代次数。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SiteBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int days;
+
+    @Param({"1", "2", "4"})
+    public int regions;
+
+    private List<RegionContext> contexts;
+    private List<List<Images>> imagesLists;
+
+    @Setup
+    public void setup() throws IOException {
+        contexts = SyntheticSite.createRegions(regions, days);
+        imagesLists = new ArrayList<>(regions);
+        for (RegionContext context : contexts) {
+            imagesLists.add(BingFileUtils.readBing(context));
+            new WebSiteGenerator(context).htmlGenerator(true);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void fullRebuild() throws IOException {
+        for (RegionContext context : contexts) {
+            new WebSiteGenerator(context).htmlGenerator(true);
+        }
+    }
+
+    /**
+     * 归档没有变化时的增量生成，只重写首页和 today
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void incremental() throws IOException {
+        for (RegionContext context : contexts) {
+            new WebSiteGenerator(context).htmlGenerator();
+        }
+    }
+
+    /**
+     * 所有地区的图片合并到 images.json，数据不变时只读取和比较
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void imagesJson() throws IOException {
+        for (int i = 0; i < contexts.size(); i++) {
+            new WebSiteGenerator(contexts.get(i)).htmlGeneratorImgJson(imagesLists.get(i));
+        }
+    }
+}
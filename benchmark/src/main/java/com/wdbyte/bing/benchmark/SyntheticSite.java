@@ -0,0 +1,126 @@
+package com.wdbyte.bing.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.html.HtmlFileUtils;
+
+/**
+ * 基准测试使用的临时目录和合成归档
+ * <p>
+ * 每个 JMH fork 使用一个临时根目录，网站模板从 classpath 复制到 {root}/docs，并通过 bing.docs.root 指向该目录，
+ * 不会读写仓库中的文件。bing.docs.root 在 HtmlFileUtils 加载时读取，因此必须在使用任何生成方法之前调用 {@link #root()}。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class SyntheticSite {
+
+    private static final LocalDate LAST_DATE = LocalDate.of(2026, 10, 16);
+    private static Path root;
+
+    /**
+     * 当前 fork 的临时根目录，首次调用时创建，JVM 退出时删除
+     *
+     * @return
+     * @throws IOException
+     */
+    public static synchronized Path root() throws IOException {
+        if (root == null) {
+            Path dir = Files.createTempDirectory("bing-benchmark");
+            Path docs = dir.resolve("docs");
+            Files.createDirectories(docs);
+            copyTemplate("bing-template.html", docs);
+            copyTemplate("bing-detail.html", docs);
+            System.setProperty(HtmlFileUtils.DOCS_ROOT_PROPERTY, docs.toString());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(dir)));
+            root = dir;
+        }
+        return root;
+    }
+
+    /**
+     * 临时目录中的地区上下文
+     *
+     * @param region
+     * @return
+     * @throws IOException
+     */
+    public static RegionContext region(String region) throws IOException {
+        Path dir = root();
+        region = region.toLowerCase(Locale.ROOT);
+        return new RegionContext(region, dir.resolve(region + "/README.md"), dir.resolve(region + "/bing-wallpaper.md"),
+            dir.resolve(region + "/picture"), dir.resolve("docs/" + region), dir.resolve(".cache"));
+    }
+
+    /**
+     * 生成 days 天的合成图片，日期倒序，和真实归档的字段长度接近
+     *
+     * @param region
+     * @param days
+     * @return
+     */
+    public static List<Images> images(String region, int days) {
+        String market = region.toUpperCase(Locale.ROOT);
+        List<Images> imagesList = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            imagesList.add(Images.builder()
+                .epochDay((int)LAST_DATE.minusDays(i).toEpochDay())
+                .desc("Synthetic wallpaper " + i + "，合成测试图片 (© Benchmark/Getty Images)")
+                .url("https://cn.bing.com/th?id=OHR.Synthetic" + i + "_" + market + (1000000000L + i * 7919L)
+                    + "_UHD.jpg&rf=LaDigue_UHD.jpg&pid=hp&w=3840&h=2160&rs=1&c=4")
+                .build());
+        }
+        return imagesList;
+    }
+
+    /**
+     * 创建 regions 个地区并写入 days 天的归档
+     *
+     * @param regions
+     * @param days
+     * @return
+     * @throws IOException
+     */
+    public static List<RegionContext> createRegions(int regions, int days) throws IOException {
+        List<RegionContext> contexts = new ArrayList<>(regions);
+        for (int i = 0; i < regions; i++) {
+            RegionContext context = region("bench-" + i);
+            BingFileUtils.writeBing(context, images(context.getRegion(), days));
+            contexts.add(context);
+        }
+        return contexts;
+    }
+
+    private static void copyTemplate(String name, Path docs) throws IOException {
+        try (InputStream in = SyntheticSite.class.getResourceAsStream("/templates/" + name)) {
+            if (in != null) {
+                Files.copy(in, docs.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+        }
+        // 在 IDE 中直接运行时从仓库目录复制
+        Files.copy(Paths.get("../docs", name), docs.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void delete(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // 临时目录，删除失败时忽略
+        }
+    }
+}
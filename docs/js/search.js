@@ -1,4 +1,22 @@
+// 搜索：优先使用生成的静态索引 /search/，没有索引时回退到对 images.json 的模糊搜索
+const SEARCH_ROOT = '/search/';
+const SEARCH_LIMIT = 30;
+let searchMeta;
+const searchCache = {};
+
 function search(){
+    const searchValue = document.getElementById("search").value.trim();
+    loadSearchJson('index.json').then(meta => {
+        if (meta) {
+            searchMeta = meta;
+            indexSearch(searchValue).then(renderResults);
+        } else {
+            fuseSearch(searchValue);
+        }
+    });
+}
+
+function fuseSearch(searchValue){
     w3.getHttpObject("/images.json", myFunction);
     function myFunction(myObject) {
         // 1. List of items to search in
@@ -12,19 +30,122 @@ function search(){
             includeMatches: true // 包含匹配的信息
         })
         // 3. Now search!
-        const searchValue = document.getElementById("search").value;
         const results = fuse.search(searchValue);
-        // const sortedResults = results.sort((a, b) => b.score - a.score);
-        // 限制返回的结果最多为 10 个
-        const limitedResults = results.slice(0, 30);
-        // alert(JSON.stringify(limitedResults));
-        // console.log(generateHTML(limitedResults));
-        document.getElementById('img_list').innerHTML = generateHTML(limitedResults);
-        addImgBtn();
+        // 限制返回的结果最多为 30 个
+        renderResults(results.slice(0, SEARCH_LIMIT));
     }
 }
 
+function renderResults(results) {
+    document.getElementById('img_list').innerHTML = generateHTML(results);
+    addImgBtn();
+}
 
+function loadSearchJson(path) {
+    if (!(path in searchCache)) {
+        searchCache[path] = fetch(SEARCH_ROOT + path)
+            .then(response => response.ok ? response.json() : null)
+            .catch(() => null);
+    }
+    return searchCache[path];
+}
+
+// 与 SearchTokenizer.java 保持一致
+const CJK = /[\p{Script=Han}\p{Script=Hiragana}\p{Script=Katakana}\p{Script=Hangul}]/u;
+const WORD = /[\p{L}\p{Nd}]/u;
+const WORD_PART = /[\p{L}\p{Nd}\p{M}]/u;
+
+function tokenize(text) {
+    const chars = Array.from(text);
+    const tokens = [];
+    let i = 0;
+    while (i < chars.length) {
+        const start = i;
+        if (CJK.test(chars[i])) {
+            while (i < chars.length && CJK.test(chars[i])) {
+                i++;
+            }
+            if (i - start === 1) {
+                tokens.push(chars[start]);
+            }
+            for (let j = start; j < i - 1; j++) {
+                tokens.push(chars[j] + chars[j + 1]);
+            }
+        } else if (WORD.test(chars[i])) {
+            while (i < chars.length && WORD_PART.test(chars[i]) && !CJK.test(chars[i])) {
+                i++;
+            }
+            const word = chars.slice(start, i).join('').normalize('NFD').replace(/\p{M}/gu, '').toLowerCase();
+            if (Array.from(word).length >= 2) {
+                tokens.push(word);
+            }
+        } else {
+            i++;
+        }
+    }
+    return Array.from(new Set(tokens));
+}
+
+function shardOf(term) {
+    const chars = Array.from(term);
+    const prefix = chars.slice(0, CJK.test(chars[0]) ? 1 : 2).join('');
+    let hash = 0x811C9DC5;
+    for (let i = 0; i < prefix.length; i++) {
+        hash ^= prefix.charCodeAt(i);
+        hash = Math.imul(hash, 0x01000193);
+    }
+    return ((hash & 0xFF) + 0x100).toString(16).substring(1);
+}
+
+// 每个词按前缀匹配，多个词取交集
+function indexSearch(searchValue) {
+    if (/^\d{4}(-\d{2}){0,2}$/.test(searchValue)) {
+        return dateSearch(searchValue);
+    }
+    const tokens = tokenize(searchValue);
+    if (tokens.length === 0) {
+        return Promise.resolve([]);
+    }
+    return Promise.all(tokens.map(token => loadSearchJson('shards/' + shardOf(token) + '.json').then(shard => {
+        const ids = new Set();
+        Object.keys(shard || {}).forEach(term => {
+            if (term.startsWith(token)) {
+                shard[term].forEach(id => ids.add(id));
+            }
+        });
+        return ids;
+    }))).then(idSets => {
+        idSets.sort((a, b) => a.size - b.size);
+        const ids = Array.from(idSets[0]).filter(id => idSets.every(set => set.has(id)));
+        ids.sort((a, b) => b - a);
+        return loadDocs(ids.slice(0, SEARCH_LIMIT));
+    });
+}
+
+function loadDocs(ids) {
+    const mask = (1 << searchMeta.regionBits) - 1;
+    return Promise.all(ids.map(id => {
+        const region = searchMeta.regions[id & mask];
+        const date = new Date(Math.floor(id / (mask + 1)) * 86400000).toISOString().substring(0, 10);
+        return loadSearchJson('docs/' + region + '/' + date.substring(0, 4) + '.json')
+            .then(docs => (docs || []).find(doc => doc.date === date));
+    })).then(docs => docs.filter(doc => doc).map(doc => ({item: doc})));
+}
+
+function dateSearch(searchValue) {
+    const year = searchValue.substring(0, 4);
+    return Promise.all(searchMeta.regions.map(region => loadSearchJson('docs/' + region + '/' + year + '.json')))
+        .then(regionDocs => {
+            const docs = [];
+            regionDocs.forEach(list => (list || []).forEach(doc => {
+                if (doc.date.startsWith(searchValue)) {
+                    docs.push(doc);
+                }
+            }));
+            docs.sort((a, b) => b.date.localeCompare(a.date));
+            return docs.slice(0, SEARCH_LIMIT).map(doc => ({item: doc}));
+        });
+}
 
 function generateHTML(data) {
     let htmlOutput = '';
@@ -60,4 +181,4 @@ document.getElementById('search').addEventListener('keypress', function(event) {
     if (event.key === 'Enter') {
         search();
     }
-});
\ No newline at end of file
+});
@@ -0,0 +1,153 @@
+package com.wdbyte.bing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.alibaba.fastjson2.JSONReader;
+
+import com.wdbyte.bing.http.HttpRequest;
+import com.wdbyte.bing.http.HttpResponse;
+import com.wdbyte.bing.http.HttpValidator;
+import com.wdbyte.bing.metrics.Metrics;
+
+/**
+ * 必应 HPImageArchive 接口
+ * <p>
+ * 响应直接从输入流按 UTF-8 解析，只读取 images 数组中每张图片的 url、enddate、copyright，
+ * 其余字段跳过，不构建完整的 JSON 对象树。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class BingApiUtils {
+
+    /**
+     * 接口地址，可以通过 -Dbing.api.host 指向本地的模拟服务
+     */
+    private static final String BING_API_HOST = System.getProperty("bing.api.host", "https://global.bing.com");
+
+    private static final String BING_API_TEMPLATE = "%s/HPImageArchive.aspx?format=js&idx=%d&n=%d&pid=hp&FORM=BEHPTB&uhd=1&uhdwidth=3840&uhdheight=2160&setmkt=%s&setlang=en";
+
+    private static final String BING_URL = "https://cn.bing.com";
+
+    /**
+     * 接口单次最多返回的图片数量
+     */
+    public static final int MAX_IMAGES = 9;
+
+    /**
+     * 接口地址
+     *
+     * @param region 地区，如 en-US
+     * @param idx    从今天往前偏移的天数
+     * @param n      图片数量
+     * @return
+     */
+    public static String getApiUrl(String region, int idx, int n) {
+        return String.format(BING_API_TEMPLATE, BING_API_HOST, idx, n, region);
+    }
+
+    /**
+     * 获取指定地区最近的图片，按接口返回顺序，即日期倒序
+     *
+     * @param region
+     * @return
+     * @throws IOException
+     */
+    public static List<Images> fetchImages(String region) throws IOException {
+        return HttpUtls.request(getApiUrl(region, 0, MAX_IMAGES), BingApiUtils::parseImages);
+    }
+
+    /**
+     * 条件请求指定地区最近的图片，响应没有变化时返回 304，body 为 null
+     *
+     * @param region
+     * @param validator 上一次响应的校验信息，可以为 null
+     * @return
+     * @throws IOException
+     */
+    public static HttpResponse<List<Images>> fetchImages(String region, HttpValidator validator) throws IOException {
+        HttpRequest request = new HttpRequest(getApiUrl(region, 0, MAX_IMAGES)).conditional(validator);
+        return HttpUtls.getHttpClient().get(request, BingApiUtils::parseImages);
+    }
+
+    /**
+     * 从接口响应中解析图片列表
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static List<Images> parseImages(InputStream in) throws IOException {
+        return Metrics.time("parse", () -> readImages(in));
+    }
+
+    private static List<Images> readImages(InputStream in) throws IOException {
+        try (JSONReader reader = JSONReader.of(in, StandardCharsets.UTF_8)) {
+            if (!reader.nextIfObjectStart()) {
+                return Collections.emptyList();
+            }
+            List<Images> imagesList = new ArrayList<>(MAX_IMAGES);
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                if ("images".equals(name) && reader.nextIfArrayStart()) {
+                    while (!reader.nextIfArrayEnd()) {
+                        Images images = readImage(reader);
+                        if (images != null) {
+                            imagesList.add(images);
+                        }
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            return imagesList;
+        } catch (RuntimeException e) {
+            throw new IOException("parse bing api response failed", e);
+        }
+    }
+
+    /**
+     * 读取 images 数组中的一个元素，缺少必要字段时返回 null
+     */
+    private static Images readImage(JSONReader reader) {
+        if (!reader.nextIfObjectStart()) {
+            reader.skipValue();
+            return null;
+        }
+        String url = null;
+        String enddate = null;
+        String copyright = null;
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            if ("url".equals(name)) {
+                url = reader.readString();
+            } else if ("enddate".equals(name)) {
+                enddate = reader.readString();
+            } else if ("copyright".equals(name)) {
+                copyright = reader.readString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        if (url == null || enddate == null) {
+            LogUtils.log("skip bing image without url or enddate,url:%s,enddate:%s", url, enddate);
+            return null;
+        }
+        try {
+            // 图片时间
+            String date = LocalDate.parse(enddate, DateTimeFormatter.BASIC_ISO_DATE).format(DateTimeFormatter.ISO_LOCAL_DATE);
+            return new Images(copyright, date, BING_URL + url);
+        } catch (DateTimeParseException e) {
+            LogUtils.log("skip bing image with invalid enddate:%s", enddate);
+            return null;
+        }
+    }
+}
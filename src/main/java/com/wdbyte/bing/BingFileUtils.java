@@ -1,16 +1,17 @@
 package com.wdbyte.bing;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+
+import com.wdbyte.bing.store.ArchiveSession;
+import com.wdbyte.bing.store.MarkdownArchive;
 
 /**
  * 文件操作工具类
@@ -21,74 +22,79 @@ import java.util.stream.Collectors;
  */
 public class BingFileUtils {
 
-    public static Path README_PATH = Paths.get("README.md");
-    public static Path BING_PATH = Paths.get("bing-wallpaper.md");
-
-    public static Path MONTH_PATH = Paths.get("picture/");
-
     /**
      * 读取 bing-wallpaper.md
      *
+     * @param context
      * @return
      * @throws IOException
      */
-    public static List<Images> readBing() throws IOException {
-        if (!Files.exists(BING_PATH)) {
-            Path parent = BING_PATH.getParent();
-            if (!Files.exists(parent)) {
-                Files.createDirectory(parent);
-            }
-            Files.createFile(BING_PATH);
-        }
-        List<String> allLines = Files.readAllLines(BING_PATH);
-        allLines = allLines.stream().filter(s -> !s.isEmpty()).collect(Collectors.toList());
-        List<Images> imgList = new ArrayList<>();
-        imgList.add(new Images());
-        for (int i = 1; i < allLines.size(); i++) {
-            String s = allLines.get(i).trim();
-            int descEnd = s.indexOf("]");
-            int urlStart = s.lastIndexOf("(") + 1;
-
-            String date = s.substring(0, 10);
-            String desc = s.substring(14, descEnd);
-            String url = s.substring(urlStart, s.length() - 1);
-            imgList.add(new Images(desc, date, url));
-        }
-        LogUtils.log("read bing wallpaper,path:%s,size:%d", BING_PATH.toString(), imgList.size());
+    public static List<Images> readBing(RegionContext context) throws IOException {
+        List<Images> imgList = getBingArchive(context).readAll();
+        LogUtils.log("read bing wallpaper,path:%s,size:%d", context.getBingPath().toString(), imgList.size());
         return imgList;
     }
 
     /**
      * 写入 bing-wallpaper.md
      *
+     * @param context
      * @param imgList
      * @throws IOException
      */
-    public static void writeBing(List<Images> imgList) throws IOException {
-        if (!Files.exists(BING_PATH)) {
-            Files.createFile(BING_PATH);
-        }
-        Files.write(BING_PATH, "## Bing Wallpaper".getBytes());
-        Files.write(BING_PATH, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+    public static void writeBing(RegionContext context, List<Images> imgList) throws IOException {
+        getBingArchive(context).rewrite(imgList);
+        LogUtils.log("write bing wallpaper,path:%s,size:%d", context.getBingPath().toString(), imgList.size());
+    }
+
+    /**
+     * 把新的图片插入 bing-wallpaper.md，已经存在的图片会被忽略
+     *
+     * @param context
+     * @param imgList
+     * @return 实际插入的图片数量
+     * @throws IOException
+     */
+    public static int insertBing(RegionContext context, List<Images> imgList) throws IOException {
+        return getBingArchive(context).insert(imgList);
+    }
+
+    /**
+     * 过滤出归档中还没有的日期，用于补齐历史图片，已有日期的记录即使说明不同也不会重复插入
+     *
+     * @param context
+     * @param imgList
+     * @return
+     * @throws IOException
+     */
+    public static List<Images> filterAbsentDates(RegionContext context, List<Images> imgList) throws IOException {
+        MarkdownArchive archive = getBingArchive(context);
+        List<Images> absent = new ArrayList<>(imgList.size());
         for (Images images : imgList) {
-            Files.write(BING_PATH, images.formatMarkdown().getBytes(), StandardOpenOption.APPEND);
-            Files.write(BING_PATH, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
-            Files.write(BING_PATH, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+            if (archive.find(images.getDate()).isEmpty()) {
+                absent.add(images);
+            }
         }
-        LogUtils.log("write bing wallpaper,path:%s,size:%d", BING_PATH.toString(), imgList.size());
+        return absent;
+    }
+
+    public static MarkdownArchive getBingArchive(RegionContext context) {
+        return new MarkdownArchive(context.getBingPath(), context.getBingBinaryPath());
     }
 
     /**
      * 读取 README.md
      *
+     * @param context
      * @return
      * @throws IOException
      */
-    public static List<Images> readReadme() throws IOException {
-        if (!Files.exists(README_PATH)) {
-            Files.createFile(README_PATH);
+    public static List<Images> readReadme(RegionContext context) throws IOException {
+        Path readmePath = context.getReadmePath();
+        if (!Files.exists(readmePath)) {
+            Files.createFile(readmePath);
         }
-        List<String> allLines = Files.readAllLines(README_PATH);
+        List<String> allLines = Files.readAllLines(readmePath);
         List<Images> imgList = new ArrayList<>();
         for (int i = 3; i < allLines.size(); i++) {
             String content = allLines.get(i);
@@ -107,60 +113,78 @@ public class BingFileUtils {
     }
 
     /**
-     * 写入 README.md
+     * 写入 README.md，内容没有变化时不写入
      *
+     * @param context
      * @param imgList
      * @throws IOException
      */
-    public static void writeReadme(List<Images> imgList) throws IOException {
-        if (!Files.exists(README_PATH)) {
-            Files.createFile(README_PATH);
-        }
-        List<Images> imagesList = new ArrayList<>(0);
-        if (imgList.size() > 30) {
-            imagesList = imgList.subList(0, 30);
-        } else {
-            imagesList = imgList;
-        }
-        writeFile(README_PATH, imagesList, null);
+    public static void writeReadme(RegionContext context, List<Images> imgList) throws IOException {
+        writeReadme(ArchiveSession.of(context, imgList));
+    }
 
-        Files.write(README_PATH, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+    /**
+     * 写入 README.md，内容没有变化时不写入
+     *
+     * @param session
+     * @throws IOException
+     */
+    public static void writeReadme(ArchiveSession session) throws IOException {
+        RegionContext context = session.getContext();
+        List<Images> imgList = session.getImages();
+        Path readmePath = context.getReadmePath();
+        List<Images> imagesList = imgList.size() > 30 ? imgList.subList(0, 30) : imgList;
+        String lineSeparator = System.lineSeparator();
+        StringBuilder content = new StringBuilder(16 * 1024);
+        appendImageTable(content, imagesList, null);
+
+        content.append(lineSeparator);
         // 归档
-        Files.write(README_PATH, "### 历史归档：".getBytes(), StandardOpenOption.APPEND);
-        Files.write(README_PATH, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
-        List<String> dateList = imgList.stream()
-            .map(Images::getDate)
-            .map(date -> date.substring(0, 7))
-            .distinct()
-            .collect(Collectors.toList());
+        content.append("### 历史归档：").append(lineSeparator);
+        String monthPath = context.getMonthPath().toString();
         int i = 0;
-        for (String date : dateList) {
-            String link = String.format("[%s](/%s/%s/) | ", date, MONTH_PATH.toString(), date);
-            Files.write(README_PATH, link.getBytes(), StandardOpenOption.APPEND);
+        for (String date : session.getMonths()) {
+            content.append('[').append(date).append("](/").append(monthPath).append('/').append(date).append("/) | ");
             i++;
             if (i % 8 == 0) {
-                Files.write(README_PATH, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+                content.append(lineSeparator);
             }
         }
+        writeMarkdown(readmePath, content);
     }
 
 
     /**
-     * 按月份写入图片信息
+     * 按月份写入图片信息，只写入内容有变化的月份
      *
+     * @param context
      * @param imgList
      * @throws IOException
      */
-    public static void writeMonthInfo(List<Images> imgList) throws IOException {
-        Map<String, List<Images>> monthMap = convertImgListToMonthMap(imgList);
+    public static void writeMonthInfo(RegionContext context, List<Images> imgList) throws IOException {
+        writeMonthInfo(ArchiveSession.of(context, imgList));
+    }
+
+    /**
+     * 按月份写入图片信息，只写入内容有变化的月份
+     *
+     * @param session
+     * @throws IOException
+     */
+    public static void writeMonthInfo(ArchiveSession session) throws IOException {
+        RegionContext context = session.getContext();
+        Map<String, List<Images>> monthMap = session.getMonthMap();
+        StringBuilder content = new StringBuilder(64 * 1024);
+        int written = 0;
         for (String key : monthMap.keySet()) {
-            Path path = MONTH_PATH.resolve(key);
-            if (!Files.exists(path)) {
-                Files.createDirectories(path);
+            content.setLength(0);
+            appendImageTable(content, monthMap.get(key), key);
+            if (writeMarkdown(context.getMonthPath().resolve(key).resolve("README.md"), content)) {
+                written++;
             }
-            path = path.resolve("README.md");
-            writeFile(path, monthMap.get(key), key);
         }
+        LogUtils.log("write month readme,path:%s,month:%d,written:%d", context.getMonthPath().toString(),
+            monthMap.size(), written);
     }
 
     /**
@@ -175,54 +199,51 @@ public class BingFileUtils {
             if (images.getUrl() == null){
                 continue;
             }
-            String key = images.getDate().substring(0, 7);
-            if (monthMap.containsKey(key)) {
-                monthMap.get(key).add(images);
-            } else {
-                ArrayList<Images> list = new ArrayList<>();
-                list.add(images);
-                monthMap.put(key, list);
-            }
+            monthMap.computeIfAbsent(images.getMonth(), key -> new ArrayList<>()).add(images);
         }
         return monthMap;
     }
 
     /**
-     * 写入图片列表到指定位置
+     * 渲染图片列表
      *
-     * @param path
+     * @param content
      * @param imagesList
      * @param name
-     * @throws IOException
      */
-    private static void writeFile(Path path, List<Images> imagesList, String name) throws IOException {
-        if (!Files.exists(path)) {
-            Files.createFile(path);
-        }
-        String title = "## Bing Wallpaper";
+    private static void appendImageTable(StringBuilder content, List<Images> imagesList, String name) {
+        String lineSeparator = System.lineSeparator();
+        content.append("## Bing Wallpaper");
         if (name != null) {
-            title = "## Bing Wallpaper (" + name + ")";
+            content.append(" (").append(name).append(')');
         }
-        Files.write(path, title.getBytes());
-        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
-        Files.write(path, imagesList.get(0).toLarge().getBytes(), StandardOpenOption.APPEND);
-        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
-        Files.write(path, "|      |      |      |".getBytes(), StandardOpenOption.APPEND);
-        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
-        Files.write(path, "| :----: | :----: | :----: |".getBytes(), StandardOpenOption.APPEND);
-        Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+        content.append(lineSeparator);
+        content.append(imagesList.get(0).toLarge()).append(lineSeparator);
+        content.append("|      |      |      |").append(lineSeparator);
+        content.append("| :----: | :----: | :----: |").append(lineSeparator);
         int i = 1;
         for (Images images : imagesList) {
-            Files.write(path, ("|" + images.toString()).getBytes(), StandardOpenOption.APPEND);
+            content.append('|').append(images.toString());
             if (i % 3 == 0) {
-                Files.write(path, "|".getBytes(), StandardOpenOption.APPEND);
-                Files.write(path, System.lineSeparator().getBytes(), StandardOpenOption.APPEND);
+                content.append('|').append(lineSeparator);
             }
             i++;
         }
         if (i % 3 != 1) {
-            Files.write(path, "|".getBytes(), StandardOpenOption.APPEND);
+            content.append('|');
         }
     }
 
+    /**
+     * 写入 markdown 文件，内容没有变化时跳过
+     *
+     * @param path
+     * @param content
+     * @return 是否写入了文件
+     * @throws IOException
+     */
+    private static boolean writeMarkdown(Path path, CharSequence content) throws IOException {
+        return FileWriteUtils.writeIfChanged(path, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
 }
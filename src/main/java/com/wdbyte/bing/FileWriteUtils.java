@@ -0,0 +1,150 @@
+package com.wdbyte.bing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import com.wdbyte.bing.metrics.Metrics;
+
+/**
+ * 文件写入工具类
+ * <p>
+ * 内容先写入同目录下的临时文件，再通过重命名替换目标文件，程序中途退出时不会留下写了一半的文件。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class FileWriteUtils {
+
+    private static final int COMPARE_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * 新文件的权限，rw-r--r--
+     */
+    private static final Set<PosixFilePermission> DEFAULT_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+    /**
+     * 内容有变化时才写入文件
+     *
+     * @param path
+     * @param content
+     * @return 是否写入了文件
+     * @throws IOException
+     */
+    public static boolean writeIfChanged(Path path, byte[] content) throws IOException {
+        if (isSameContent(path, content)) {
+            Metrics.increment(Metrics.FILES_SKIPPED);
+            return false;
+        }
+        writeAtomically(path, content);
+        return true;
+    }
+
+    /**
+     * 通过临时文件和重命名写入文件
+     *
+     * @param path
+     * @param content
+     * @throws IOException
+     */
+    public static void writeAtomically(Path path, byte[] content) throws IOException {
+        Path tempPath = createTempFile(path);
+        try {
+            Files.write(tempPath, content);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        replace(tempPath, path);
+        Metrics.increment(Metrics.FILES_WRITTEN);
+        Metrics.add(Metrics.BYTES_WRITTEN, content.length);
+        LogUtils.debug("file write to %s", path);
+    }
+
+    /**
+     * 在目标文件所在目录创建临时文件，目录不存在时自动创建
+     * <p>
+     * Files.createTempFile 在 POSIX 文件系统上创建的文件权限为 0600，重命名后目标文件也会变成 0600，
+     * 因此临时文件改为使用目标文件原有的权限，目标文件不存在时使用 0644。
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static Path createTempFile(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (!Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        Path tempPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            copyPermissions(path, tempPath);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        return tempPath;
+    }
+
+    private static void copyPermissions(Path path, Path tempPath) throws IOException {
+        if (Files.getFileAttributeView(tempPath, PosixFileAttributeView.class) == null) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = Files.exists(path)
+            ? Files.getPosixFilePermissions(path) : DEFAULT_PERMISSIONS;
+        Files.setPosixFilePermissions(tempPath, permissions);
+    }
+
+    /**
+     * 使用临时文件替换目标文件，文件系统不支持原子重命名时退化为普通重命名
+     *
+     * @param tempPath
+     * @param path
+     * @throws IOException
+     */
+    public static void replace(Path tempPath, Path path) throws IOException {
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 比较文件内容，先比较大小，大小一致时再逐块比较
+     *
+     * @param path
+     * @param content
+     * @return
+     * @throws IOException
+     */
+    public static boolean isSameContent(Path path, byte[] content) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) != content.length) {
+            return false;
+        }
+        byte[] buffer = new byte[Math.min(COMPARE_BUFFER_SIZE, Math.max(content.length, 1))];
+        int offset = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                if (offset + len > content.length) {
+                    return false;
+                }
+                for (int i = 0; i < len; i++) {
+                    if (buffer[i] != content[offset + i]) {
+                        return false;
+                    }
+                }
+                offset += len;
+            }
+        }
+        return offset == content.length;
+    }
+}
@@ -1,10 +1,13 @@
 package com.wdbyte.bing;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.wdbyte.bing.http.HttpClient;
+import com.wdbyte.bing.http.HttpRequest;
+import com.wdbyte.bing.http.ResponseHandler;
+import com.wdbyte.bing.http.UrlConnectionHttpClient;
 
 /**
  * <p>
@@ -16,44 +19,58 @@ import java.net.URL;
  */
 public class HttpUtls {
 
+    private static volatile HttpClient httpClient = UrlConnectionHttpClient.fromSystemProperties();
+
+    /**
+     * 当前使用的 HTTP 客户端
+     *
+     * @return
+     */
+    public static HttpClient getHttpClient() {
+        return httpClient;
+    }
+
     /**
-     * 获取 HTTP 连接
+     * 替换 HTTP 客户端，例如指向本地的模拟服务
+     *
+     * @param client
+     */
+    public static void setHttpClient(HttpClient client) {
+        httpClient = client;
+    }
+
+    /**
+     * 请求指定 URL 并交给 handler 处理响应流
      *
      * @param url
+     * @param handler
      * @return
      * @throws IOException
      */
-    public static HttpURLConnection getHttpUrlConnection(String url) throws IOException {
-        URL httpUrl = new URL(url);
-        HttpURLConnection httpConnection = (HttpURLConnection)httpUrl.openConnection();
-        httpConnection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/83.0.4103.116 Safari/537.36");
-        return httpConnection;
+    public static <T> T request(String url, ResponseHandler<T> handler) throws IOException {
+        return httpClient.get(new HttpRequest(url), handler).getBody();
     }
 
     /**
      * 请求指定 URL 返回内容
+     * <p>
+     * 先读取完整的字节再按 UTF-8 解码，避免多字节字符被分块截断
      *
      * @param url
      * @return
-     * @throws IOException
+     * @throws IOException 请求失败或者重试次数用完
      */
     public static String getHttpContent(String url) throws IOException {
-        HttpURLConnection httpUrlConnection = getHttpUrlConnection(url);
-        StringBuilder stringBuilder = new StringBuilder();
-        // 获得输入流
-        try (InputStream input = httpUrlConnection.getInputStream(); BufferedInputStream bis = new BufferedInputStream(input);) {
-            byte[] buffer = new byte[1024];
-            int len = -1;
+        return request(url, input -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+            byte[] buffer = new byte[8 * 1024];
+            int len;
             // 读到文件末尾则返回-1
-            while ((len = bis.read(buffer)) != -1) {
-                stringBuilder.append(new String(buffer, 0, len));
+            while ((len = input.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            httpUrlConnection.disconnect();
-        }
-        return stringBuilder.toString();
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        });
     }
 
 }
@@ -1,55 +1,105 @@
 package com.wdbyte.bing;
 
+import java.time.LocalDate;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * 壁纸记录，创建后不可修改，可以在并行生成时共享
+ * <p>
+ * 日期保存为 epoch day，月份字符串在所有记录间共享；简略 URL 和详情页路径首次使用时计算并缓存，
+ * 哈希值在创建时计算。
+ *
  * @author niujinpeng
  * @date 2021/02/08
  * @link https://github.com/niumoo
  */
 public class Images {
-    private String desc;
-    private String date;
-    private String url;
+
+    /**
+     * 月份（yyyy * 12 + MM - 1） -> yyyy-MM，所有记录共用同一个字符串
+     */
+    private static final ConcurrentHashMap<Integer, String> MONTH_KEYS = new ConcurrentHashMap<>();
+
+    private final String desc;
+    private final int epochDay;
+    private final String url;
+    private final String month;
+    private final int hash;
+    /**
+     * 以下字段首次使用时计算，并发计算的结果相同，不需要同步
+     */
+    private String simpleUrl;
+    private String detailUrlPath;
+
+    public Images(String desc, String date, String url) {
+        this(desc, parseEpochDay(date), url);
+    }
+
+    private Images(String desc, int epochDay, String url) {
+        this.desc = desc;
+        this.epochDay = epochDay;
+        this.url = url;
+        LocalDate localDate = LocalDate.ofEpochDay(epochDay);
+        this.month = MONTH_KEYS.computeIfAbsent(localDate.getYear() * 12 + localDate.getMonthValue() - 1,
+            key -> formatMonth(localDate));
+        this.hash = 31 * (31 * epochDay + (url == null ? 0 : url.hashCode())) + (desc == null ? 0 : desc.hashCode());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
 
     @Override
     public String toString() {
-        String smallUrl = url;
-        if (smallUrl.contains("&")) {
-            smallUrl = smallUrl.substring(0, smallUrl.indexOf("&"));
-        }
-        smallUrl = smallUrl + "&pid=hp&w=384&h=216&rs=1&c=4";
+        String smallUrl = getSimpleUrl() + "&pid=hp&w=384&h=216&rs=1&c=4";
         //return String.format("![](%s)[%s\\| %s](%s)", smallUrl, date, desc, url);
-        return String.format("![](%s)%s [download 4k](%s)", smallUrl, date, url);
+        return new StringBuilder(smallUrl.length() + url.length() + 32)
+            .append("![](").append(smallUrl).append(')').append(getDate())
+            .append(" [download 4k](").append(url).append(')')
+            .toString();
     }
 
     public String formatMarkdown() {
-        return String.format("%s | [%s](%s) ", date, desc, url);
+        return new StringBuilder(64 + (desc == null ? 0 : desc.length()) + (url == null ? 0 : url.length()))
+            .append(getDate()).append(" | [").append(desc).append("](").append(url).append(") ")
+            .toString();
     }
 
     public String toLarge() {
-        String smallUrl = url;
-        if (smallUrl.contains("&")) {
-            smallUrl = smallUrl.substring(0, smallUrl.indexOf("&"));
-        }
-        smallUrl = smallUrl + "&w=1000";
-        return String.format("![](%s)Today: [%s](%s)", smallUrl, desc, url);
+        String smallUrl = getSimpleUrl() + "&w=1000";
+        return new StringBuilder(smallUrl.length() + url.length() + 32)
+            .append("![](").append(smallUrl).append(")Today: [").append(desc).append("](").append(url).append(')')
+            .toString();
     }
 
     public String getDesc() {
         return desc;
     }
 
-    public void setDesc(String desc) {
-        this.desc = desc;
+    /**
+     * @return yyyy-MM-dd
+     */
+    public String getDate() {
+        LocalDate localDate = LocalDate.ofEpochDay(epochDay);
+        char[] chars = new char[10];
+        writeDigits(chars, 0, localDate.getYear(), 4);
+        chars[4] = '-';
+        writeDigits(chars, 5, localDate.getMonthValue(), 2);
+        chars[7] = '-';
+        writeDigits(chars, 8, localDate.getDayOfMonth(), 2);
+        return new String(chars);
     }
 
-    public String getDate() {
-        return date;
+    public int getEpochDay() {
+        return epochDay;
     }
 
-    public void setDate(String date) {
-        this.date = date;
+    /**
+     * @return yyyy-MM
+     */
+    public String getMonth() {
+        return month;
     }
 
     public String getUrl() {
@@ -57,29 +107,30 @@ public class Images {
     }
 
     public String getSimpleUrl() {
-        if (url.contains("&")) {
-            return url.substring(0, url.indexOf("&"));
+        String result = simpleUrl;
+        if (result == null) {
+            int end = url.indexOf('&');
+            result = end < 0 ? url : url.substring(0, end);
+            simpleUrl = result;
         }
-        return url;
+        return result;
     }
 
     public String getDetailUrlPath() {
-        String yyyymm = date.replace("-", "").substring(0, 6);
-        String dd = date.substring(8);
-        return "day/" + yyyymm+"/" + dd+".html";
-    }
-
-    public void setUrl(String url) {
-        this.url = url;
-    }
-
-    public Images() {
-    }
-
-    public Images(String desc, String date, String url) {
-        this.desc = desc;
-        this.date = date;
-        this.url = url;
+        String result = detailUrlPath;
+        if (result == null) {
+            LocalDate localDate = LocalDate.ofEpochDay(epochDay);
+            char[] chars = new char[20];
+            "day/".getChars(0, 4, chars, 0);
+            writeDigits(chars, 4, localDate.getYear(), 4);
+            writeDigits(chars, 8, localDate.getMonthValue(), 2);
+            chars[10] = '/';
+            writeDigits(chars, 11, localDate.getDayOfMonth(), 2);
+            ".html".getChars(0, 5, chars, 13);
+            result = new String(chars, 0, 18);
+            detailUrlPath = result;
+        }
+        return result;
     }
 
     @Override
@@ -87,12 +138,95 @@ public class Images {
         if (this == o) { return true; }
         if (o == null || getClass() != o.getClass()) { return false; }
         Images images = (Images)o;
-        return Objects.equals(desc, images.desc) && Objects.equals(date, images.date)
-            && Objects.equals(url, images.url);
+        return hash == images.hash && epochDay == images.epochDay && Objects.equals(url, images.url)
+            && Objects.equals(desc, images.desc);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(desc, date, url);
+        return hash;
+    }
+
+    /**
+     * 解析 yyyy-MM-dd
+     */
+    private static int parseEpochDay(String date) {
+        if (date != null && date.length() == 10 && date.charAt(4) == '-' && date.charAt(7) == '-') {
+            int year = parseDigits(date, 0, 4);
+            int month = parseDigits(date, 5, 7);
+            int day = parseDigits(date, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return (int)LocalDate.of(year, month, day).toEpochDay();
+            }
+        }
+        // 格式不符时交给 LocalDate 抛出带原始内容的异常
+        return (int)LocalDate.parse(date).toEpochDay();
+    }
+
+    private static int parseDigits(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char)('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static String formatMonth(LocalDate localDate) {
+        char[] chars = new char[7];
+        writeDigits(chars, 0, localDate.getYear(), 4);
+        chars[4] = '-';
+        writeDigits(chars, 5, localDate.getMonthValue(), 2);
+        return new String(chars);
+    }
+
+    /**
+     * 构建不可变的 Images
+     */
+    public static class Builder {
+        private String desc;
+        private Integer epochDay;
+        private String url;
+
+        public Builder desc(String desc) {
+            this.desc = desc;
+            return this;
+        }
+
+        /**
+         * @param date yyyy-MM-dd
+         * @return
+         */
+        public Builder date(String date) {
+            this.epochDay = parseEpochDay(date);
+            return this;
+        }
+
+        public Builder epochDay(int epochDay) {
+            this.epochDay = epochDay;
+            return this;
+        }
+
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Images build() {
+            if (epochDay == null) {
+                throw new IllegalStateException("date is required");
+            }
+            return new Images(desc, epochDay, url);
+        }
     }
 }
@@ -6,6 +6,11 @@ package com.wdbyte.bing;
  */
 public class LogUtils {
 
+    /**
+     * -Dbing.log.level=debug 时输出逐个文件的调试日志
+     */
+    private static final boolean DEBUG = "debug".equalsIgnoreCase(System.getProperty("bing.log.level"));
+
     public static void log(String msg, Object... args) {
         if (args != null) {
             System.out.println(String.format(msg, args));
@@ -13,4 +18,20 @@ public class LogUtils {
             System.out.println(msg);
         }
     }
+
+    /**
+     * 调试日志，未开启时不格式化参数
+     *
+     * @param msg
+     * @param args
+     */
+    public static void debug(String msg, Object... args) {
+        if (DEBUG) {
+            log(msg, args);
+        }
+    }
+
+    public static boolean isDebugEnabled() {
+        return DEBUG;
+    }
 }
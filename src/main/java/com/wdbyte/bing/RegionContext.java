@@ -0,0 +1,135 @@
+package com.wdbyte.bing;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.wdbyte.bing.html.HtmlFileUtils;
+
+/**
+ * 单个市场（地区）的运行上下文，包含该地区所有的输入输出路径
+ * <p>
+ * 每个地区使用独立的上下文对象，不再修改全局静态路径，因此多个地区可以并行处理。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class RegionContext {
+
+    /**
+     * 默认地区，文件直接输出到仓库根目录和 docs/ 下
+     */
+    public static final String DEFAULT_REGION = "en-us";
+
+    private static final Path CACHE_ROOT = Paths.get(".cache/");
+
+    /**
+     * 地区代码，小写，如 en-us、zh-cn
+     */
+    private final String region;
+    private final Path readmePath;
+    private final Path bingPath;
+    private final Path monthPath;
+    private final Path htmlRoot;
+    /**
+     * 本地缓存目录，存放索引等可以随时重建的文件，不提交到仓库
+     */
+    private final Path cacheRoot;
+
+    public RegionContext(String region, Path readmePath, Path bingPath, Path monthPath, Path htmlRoot) {
+        this(region, readmePath, bingPath, monthPath, htmlRoot, CACHE_ROOT);
+    }
+
+    public RegionContext(String region, Path readmePath, Path bingPath, Path monthPath, Path htmlRoot,
+        Path cacheRoot) {
+        this.region = region;
+        this.readmePath = readmePath;
+        this.bingPath = bingPath;
+        this.monthPath = monthPath;
+        this.htmlRoot = htmlRoot;
+        this.cacheRoot = cacheRoot;
+    }
+
+    /**
+     * 根据地区代码创建上下文，en-us 输出到根目录，其他地区输出到以地区代码命名的子目录；
+     * 网站目录与 {@link HtmlFileUtils#getHtmlRoot()} 一致，同样受 -Dbing.docs.root 控制
+     *
+     * @param region
+     * @return
+     */
+    public static RegionContext of(String region) {
+        region = region.toLowerCase();
+        if (DEFAULT_REGION.equals(region)) {
+            return new RegionContext(region, Paths.get("README.md"), Paths.get("bing-wallpaper.md"),
+                Paths.get("picture/"), HtmlFileUtils.getHtmlRoot());
+        }
+        return new RegionContext(region, Paths.get(region + "/README.md"), Paths.get(region + "/bing-wallpaper.md"),
+            Paths.get(region + "/picture/"), HtmlFileUtils.getHtmlRoot().resolve(region));
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public Path getReadmePath() {
+        return readmePath;
+    }
+
+    public Path getBingPath() {
+        return bingPath;
+    }
+
+    public Path getMonthPath() {
+        return monthPath;
+    }
+
+    public Path getHtmlRoot() {
+        return htmlRoot;
+    }
+
+    public Path getCacheRoot() {
+        return cacheRoot;
+    }
+
+    /**
+     * 地区页面在网站中的路径，en-us 为 /，其他地区为 /{region}/
+     *
+     * @return
+     */
+    public String getSitePath() {
+        return DEFAULT_REGION.equals(region) ? "/" : "/" + region + "/";
+    }
+
+    /**
+     * bing-wallpaper.md 对应的二进制归档，见 {@link com.wdbyte.bing.store.BinaryArchive}
+     * <p>
+     * 不提交到仓库，GitHub Actions 上通过 actions/cache 保留，缓存缺失时从 markdown 重新转换
+     *
+     * @return
+     */
+    public Path getBingBinaryPath() {
+        return cacheRoot.resolve(bingPath.toString() + ".bin");
+    }
+
+    /**
+     * 上一次生成网站的清单，见 {@link com.wdbyte.bing.html.SiteManifest}
+     *
+     * @return
+     */
+    public Path getSiteManifestPath() {
+        return cacheRoot.resolve("site/" + region + ".json");
+    }
+
+    /**
+     * 必应接口上一次响应的 ETag 和 Last-Modified
+     *
+     * @return
+     */
+    public Path getHttpValidatorPath() {
+        return cacheRoot.resolve("http/" + region + ".json");
+    }
+
+    @Override
+    public String toString() {
+        return region;
+    }
+}
@@ -1,19 +1,25 @@
 package com.wdbyte.bing;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
-
-import com.wdbyte.bing.html.HtmlFileUtils;
 import com.wdbyte.bing.html.WebSiteGenerator;
+import com.wdbyte.bing.http.HttpResponse;
+import com.wdbyte.bing.http.HttpValidatorStore;
+import com.wdbyte.bing.metrics.Metrics;
+import com.wdbyte.bing.schedule.RolloverScheduler;
+import com.wdbyte.bing.store.ArchiveSession;
+import com.wdbyte.bing.store.PhotoIndex;
 
 /**
  * @author niujinpeng
@@ -22,86 +28,279 @@ import com.wdbyte.bing.html.WebSiteGenerator;
  */
 public class Wallpaper {
 
-    // BING API
-    private static final String BING_API_TEMPLATE = "https://global.bing.com/HPImageArchive.aspx?format=js&idx=0&n=9&pid=hp&FORM=BEHPTB&uhd=1&uhdwidth=3840&uhdheight=2160&setmkt=%s&setlang=en";
-    private static String BING_API = "https://cn.bing.com/HPImageArchive.aspx?format=js&idx=0&n=10&nc=1612409408851&pid=hp&FORM=BEHPTB&uhd=1&uhdwidth=3840&uhdheight=2160";
-
-    private static String BING_URL = "https://cn.bing.com";
-
     /**
      *
      * {"en-US", "zh-CN", "ja-JP", "en-IN", "pt-BR", "fr-FR", "de-DE", "en-CA", "en-GB", "it-IT", "es-ES", "fr-CA"};
      */
     private static String[] regions =  {"en-US", "zh-CN"};
 
-    public static String CURRENT_REGION = "en-US";
+    /**
+     * 同时处理的地区数量，默认不超过 CPU 核数，可通过 -Dbing.region.parallelism 调整
+     */
+    public static final String REGION_PARALLELISM_PROPERTY = "bing.region.parallelism";
+    /**
+     * 为 true 时常驻运行，在各地区的换图时间分别获取，见 {@link RolloverScheduler}
+     */
+    public static final String DAEMON_PROPERTY = "bing.daemon";
 
+    /**
+     * 默认更新的地区
+     *
+     * @return
+     */
+    public static String[] getDefaultRegions() {
+        return regions.clone();
+    }
+
+    /**
+     * 启动参数可以指定需要更新的地区，不指定时使用默认地区列表
+     * <p>
+     * 先并行更新所有地区的归档，全部写入后再读取归档、构建跨地区索引并并行生成，
+     * 生成阶段读到的其他地区归档不会是写了一半的状态。
+     *
+     * @param args
+     * @throws IOException
+     */
     public static void main(String[] args) throws IOException {
-        for (String region : regions) {
-            String bingApi = String.format(BING_API_TEMPLATE, region);
-            changeConfig(region);
-            String httpContent = HttpUtls.getHttpContent(bingApi);
-            if (httpContent == null || httpContent.isEmpty()) {
-                LogUtils.log("从必应API获取数据失败，URL: %s", bingApi);
-                continue;
+        String[] updateRegions = args.length > 0 ? args : regions;
+        if (Boolean.getBoolean(DAEMON_PROPERTY)) {
+            RolloverScheduler scheduler = RolloverScheduler.create();
+            for (String region : updateRegions) {
+                scheduler.add(RegionContext.of(region));
             }
-            
-            JSONObject jsonObject = JSON.parseObject(httpContent);
-            if (jsonObject == null) {
-                LogUtils.log("解析JSON数据失败，内容: %s", httpContent);
-                continue;
+            scheduler.run();
+            return;
+        }
+        List<RegionContext> contexts = new ArrayList<>(updateRegions.length);
+        for (String region : updateRegions) {
+            contexts.add(RegionContext.of(region));
+        }
+        ExecutorService executor = newRegionExecutor(contexts.size());
+        try {
+            List<IOException> failures = new ArrayList<>();
+            Map<RegionContext, ArchiveUpdate> updates = runRegions(executor, contexts, "region.archive",
+                Wallpaper::updateArchive, failures);
+            // 没有获取到图片的地区不再生成
+            updates.values().removeIf(Objects::isNull);
+            List<ArchiveSession> sessions = new ArrayList<>(updates.size());
+            for (ArchiveUpdate update : updates.values()) {
+                sessions.add(update.session);
             }
-            
-            JSONArray jsonArray = jsonObject.getJSONArray("images");
-            if (jsonArray == null || jsonArray.isEmpty()) {
-                LogUtils.log("JSON中没有找到images数组或数组为空");
-                continue;
+            PhotoIndex photos = loadPhotos(sessions);
+            runRegions(executor, updates.keySet(), "region.generate", context -> {
+                ArchiveUpdate update = updates.get(context);
+                regenerate(update.session, photos);
+                update.commit();
+                return update.session;
+            }, failures);
+            if (!failures.isEmpty()) {
+                throw failures.get(0);
             }
+        } finally {
+            executor.shutdown();
+            writeMetricsReport();
+        }
+    }
+
+    /**
+     * 处理地区任务的线程池，默认不超过 CPU 核数
+     *
+     * @param regionCount 地区数量
+     * @return
+     */
+    public static ExecutorService newRegionExecutor(int regionCount) {
+        int defaultParallelism = Math.min(regionCount, Runtime.getRuntime().availableProcessors());
+        int parallelism = Math.max(1, Integer.getInteger(REGION_PARALLELISM_PROPERTY, defaultParallelism));
+        return Executors.newFixedThreadPool(parallelism);
+    }
 
-            Object firstImage = jsonArray.get(0);
-            if (firstImage == null) {
-                LogUtils.log("images数组的第一个元素为null");
-                continue;
+    /**
+     * 并行执行各地区的任务并等待全部结束，单个地区失败不影响其他地区
+     *
+     * @param executor
+     * @param contexts
+     * @param phase 计时的阶段名称
+     * @param task
+     * @param failures 失败地区的异常按地区顺序追加到这里
+     * @return 成功的地区及结果，按地区顺序排列
+     * @throws IOException 等待时被中断
+     */
+    public static <T> Map<RegionContext, T> runRegions(ExecutorService executor, Collection<RegionContext> contexts,
+        String phase, RegionTask<T> task, List<IOException> failures) throws IOException {
+        Map<RegionContext, Future<T>> futureMap = new LinkedHashMap<>();
+        for (RegionContext context : contexts) {
+            futureMap.put(context, executor.submit(() -> {
+                Metrics.setRegion(context.getRegion());
+                try {
+                    return Metrics.time(phase, () -> task.run(context));
+                } finally {
+                    Metrics.setRegion(null);
+                }
+            }));
+        }
+        Map<RegionContext, T> results = new LinkedHashMap<>();
+        for (Map.Entry<RegionContext, Future<T>> entry : futureMap.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                LogUtils.log("地区任务失败，阶段: %s，地区: %s，原因: %s", phase, entry.getKey(), e.getCause());
+                failures.add(e.getCause() instanceof IOException ? (IOException)e.getCause()
+                    : new IOException(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
             }
-            
-            jsonObject = (JSONObject)firstImage;
-            // 图片地址
-            String url = BING_URL + (String)jsonObject.get("url");
-
-            // 图片时间
-            String enddate = (String)jsonObject.get("enddate");
-            LocalDate localDate = LocalDate.parse(enddate, DateTimeFormatter.BASIC_ISO_DATE);
-            enddate = localDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
-
-            // 图片版权
-            String copyright = (String)jsonObject.get("copyright");
-
-            List<Images> imagesList = BingFileUtils.readBing();
-            imagesList.set(0,new Images(copyright, enddate, url));
-            imagesList = imagesList.stream().distinct().collect(Collectors.toList());
-            BingFileUtils.writeBing(imagesList);
-            BingFileUtils.writeReadme(imagesList);
-            BingFileUtils.writeMonthInfo(imagesList);
-            
-            // 生成网站
-            new WebSiteGenerator().htmlGenerator();
         }
+        return results;
+    }
+
+    /**
+     * 输出运行指标，失败时只打印日志，不影响更新结果
+     */
+    private static void writeMetricsReport() {
+        try {
+            Metrics.writeReport();
+        } catch (IOException e) {
+            LogUtils.log("write metrics report failed,reason:%s", e);
+        }
+    }
+
+    /**
+     * 获取指定地区的壁纸并更新 markdown 和网站，只更新一个地区时使用
+     *
+     * @param context
+     * @return 更新后的归档，没有获取到图片时返回 null
+     * @throws IOException
+     */
+    public static ArchiveSession updateRegion(RegionContext context) throws IOException {
+        ArchiveUpdate update = updateArchive(context);
+        if (update == null) {
+            return null;
+        }
+        regenerate(update.session, loadPhotos(Collections.singletonList(update.session)));
+        update.commit();
+        return update.session;
     }
 
-    public static void changeConfig(String region) {
-        region = region.toLowerCase();
-        CURRENT_REGION = region;
-        if ("en-us".equalsIgnoreCase(region)) {
-            BingFileUtils.README_PATH = Paths.get("README.md");
-            BingFileUtils.BING_PATH = Paths.get("bing-wallpaper.md");
-            BingFileUtils.MONTH_PATH = Paths.get("picture/");
-            HtmlFileUtils.BING_HTML_ROOT = Paths.get("docs/");
+    /**
+     * 获取指定地区的壁纸并插入归档，返回插入后的归档
+     *
+     * @param context
+     * @return 没有获取到图片时返回 null
+     * @throws IOException
+     */
+    private static ArchiveUpdate updateArchive(RegionContext context) throws IOException {
+        HttpValidatorStore validatorStore = HttpValidatorStore.read(context.getHttpValidatorPath());
+        String apiUrl = BingApiUtils.getApiUrl(context.getRegion(), 0, BingApiUtils.MAX_IMAGES);
+        HttpResponse<List<Images>> response = Metrics.time("fetch",
+            () -> BingApiUtils.fetchImages(context.getRegion(), validatorStore.get(apiUrl)));
+        if (response.isNotModified()) {
+            // 接口内容没有变化，归档无需更新，后续生成都会跳过没有变化的文件
+            LogUtils.log("bing api not modified,region:%s", context);
         } else {
-            BingFileUtils.README_PATH = Paths.get(region + "/README.md");
-            BingFileUtils.BING_PATH = Paths.get(region + "/bing-wallpaper.md");
-            BingFileUtils.MONTH_PATH = Paths.get(region + "/picture/");
-            HtmlFileUtils.BING_HTML_ROOT = Paths.get("docs/" + region + "/");
+            List<Images> fetched = response.getBody();
+            if (fetched.isEmpty()) {
+                LogUtils.log("从必应API获取数据失败，地区: %s", context.getRegion());
+                return null;
+            }
+            // 第一张是今天的图片，其余的用来补齐错过的日期，只插入归档中还没有的日期
+            List<Images> newImages = new ArrayList<>(fetched.size());
+            newImages.add(fetched.get(0));
+            newImages.addAll(BingFileUtils.filterAbsentDates(context, fetched.subList(1, fetched.size())));
+            Metrics.time("markdown.archive", () -> BingFileUtils.insertBing(context, newImages));
+        }
+        ArchiveSession session = Metrics.time("archive.read", () -> ArchiveSession.load(context));
+        return new ArchiveUpdate(validatorStore, apiUrl, response, session);
+    }
+
+    /**
+     * 根据归档重新生成 README、月度 markdown 和网站，只生成一个地区时使用
+     *
+     * @param context
+     * @return 本次使用的归档
+     * @throws IOException
+     */
+    public static ArchiveSession regenerate(RegionContext context) throws IOException {
+        ArchiveSession session = Metrics.time("archive.read", () -> ArchiveSession.load(context));
+        regenerate(session, loadPhotos(Collections.singletonList(session)));
+        return session;
+    }
+
+    /**
+     * 根据已读取的归档重新生成 README、月度 markdown 和网站，归档只读取一次，各个步骤共用
+     *
+     * @param session
+     * @param photos 跨地区图片索引，未开启按照片去重时为 null
+     * @throws IOException
+     */
+    public static void regenerate(ArchiveSession session, PhotoIndex photos) throws IOException {
+        Metrics.time("markdown.readme", () -> BingFileUtils.writeReadme(session));
+        Metrics.time("markdown.month", () -> BingFileUtils.writeMonthInfo(session));
+
+        // 生成网站
+        boolean fullRebuild = Boolean.getBoolean(WebSiteGenerator.FULL_REBUILD_PROPERTY);
+        Metrics.time("html",
+            () -> new WebSiteGenerator(session.getContext(), photos).htmlGenerator(session, fullRebuild));
+    }
+
+    /**
+     * 开启按照片去重时构建跨地区图片索引，已读取的归档直接使用，网站的其他地区从磁盘读取
+     * <p>
+     * 其他地区的归档不能同时在写入，并行更新多个地区时需要在所有地区写入归档后调用。
+     *
+     * @param loaded 已读取的归档
+     * @return 未开启时返回 null
+     * @throws IOException
+     */
+    public static PhotoIndex loadPhotos(Collection<ArchiveSession> loaded) throws IOException {
+        if (!Boolean.getBoolean(PhotoIndex.DEDUPE_PROPERTY)) {
+            return null;
+        }
+        Map<String, ArchiveSession> sessionMap = new LinkedHashMap<>();
+        for (ArchiveSession session : loaded) {
+            sessionMap.put(session.getRegion(), session);
         }
+        // 网站地区的顺序决定主地区，其余地区排在后面
+        List<ArchiveSession> sessions = new ArrayList<>();
+        for (String region : regions) {
+            RegionContext context = RegionContext.of(region);
+            ArchiveSession session = sessionMap.remove(context.getRegion());
+            sessions.add(session != null ? session : ArchiveSession.load(context));
+        }
+        sessions.addAll(sessionMap.values());
+        return PhotoIndex.build(sessions);
     }
 
+    /**
+     * 一个地区的任务
+     */
+    @FunctionalInterface
+    public interface RegionTask<T> {
+        T run(RegionContext context) throws IOException;
+    }
+
+    /**
+     * 已经写入归档、还没有生成的地区；生成成功后才保存接口的校验信息，中途失败时下次仍会完整请求
+     */
+    private static class ArchiveUpdate {
+        private final HttpValidatorStore validatorStore;
+        private final String apiUrl;
+        private final HttpResponse<List<Images>> response;
+        private final ArchiveSession session;
+
+        ArchiveUpdate(HttpValidatorStore validatorStore, String apiUrl, HttpResponse<List<Images>> response,
+            ArchiveSession session) {
+            this.validatorStore = validatorStore;
+            this.apiUrl = apiUrl;
+            this.response = response;
+            this.session = session;
+        }
+
+        void commit() throws IOException {
+            if (!response.isNotModified()) {
+                validatorStore.put(apiUrl, response.getValidator());
+                validatorStore.write();
+            }
+        }
+    }
 }
@@ -0,0 +1,215 @@
+package com.wdbyte.bing.backfill;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import com.wdbyte.bing.BingApiUtils;
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.HttpUtls;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.Wallpaper;
+import com.wdbyte.bing.http.HttpClient;
+import com.wdbyte.bing.http.HttpRequest;
+import com.wdbyte.bing.http.RateLimiter;
+import com.wdbyte.bing.metrics.Metrics;
+import com.wdbyte.bing.store.ArchiveSession;
+import com.wdbyte.bing.store.PhotoIndex;
+
+/**
+ * 历史图片补齐
+ * <p>
+ * 按 idx 偏移逐页请求 HPImageArchive，直到接口不再返回新的日期或者达到页数上限；各地区并行执行，
+ * 所有请求共享同一个限速器。归档中还没有的日期会被插入，所有地区插入后再重新生成有新记录地区的 markdown 和网站，
+ * 并在 .cache/backfill/{region}.json 输出归档的缺失日期报告。
+ * <p>
+ * 系统属性：
+ * bing.backfill.maxPages 每个地区最多请求的页数，默认 4；
+ * bing.backfill.rate 每秒最多请求数，默认 2；
+ * bing.backfill.fixtures 从录制的响应目录回放，不访问网络；
+ * bing.backfill.record 把接口响应录制到指定目录。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class BackfillEngine {
+
+    private final HttpClient httpClient;
+    private final RateLimiter rateLimiter;
+    private final int maxPages;
+    private final Path recordRoot;
+
+    public BackfillEngine(HttpClient httpClient, RateLimiter rateLimiter, int maxPages, Path recordRoot) {
+        this.httpClient = httpClient;
+        this.rateLimiter = rateLimiter;
+        this.maxPages = Math.max(1, maxPages);
+        this.recordRoot = recordRoot;
+    }
+
+    /**
+     * 启动参数可以指定需要补齐的地区，不指定时使用默认地区列表
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        String fixtures = System.getProperty("bing.backfill.fixtures");
+        String record = System.getProperty("bing.backfill.record");
+        HttpClient httpClient = fixtures != null ? new FixtureHttpClient(Paths.get(fixtures)) : HttpUtls.getHttpClient();
+        BackfillEngine engine = new BackfillEngine(httpClient,
+            new RateLimiter(Double.parseDouble(System.getProperty("bing.backfill.rate", "2"))),
+            Integer.getInteger("bing.backfill.maxPages", 4),
+            record != null ? Paths.get(record) : null);
+
+        String[] regions = args.length > 0 ? args : Wallpaper.getDefaultRegions();
+        List<RegionContext> contexts = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            contexts.add(RegionContext.of(region));
+        }
+        for (GapReport report : engine.backfill(contexts)) {
+            LogUtils.log("backfill finished,region:%s,fetched:%d,inserted:%d,missing days:%d,gaps:%s",
+                report.getRegion(), report.getFetched(), report.getInserted(), report.getMissingDays(), report.getGaps());
+        }
+        Metrics.writeReport();
+    }
+
+    /**
+     * 并行补齐多个地区，所有地区写入归档后再生成有新记录的地区；任一地区失败时在所有地区结束后抛出第一个异常
+     *
+     * @param contexts
+     * @return 每个地区的缺失日期报告
+     * @throws IOException
+     */
+    public List<GapReport> backfill(List<RegionContext> contexts) throws IOException {
+        ExecutorService executor = Wallpaper.newRegionExecutor(contexts.size());
+        try {
+            List<IOException> failures = new ArrayList<>();
+            Map<RegionContext, Backfilled> results = Wallpaper.runRegions(executor, contexts, "backfill",
+                this::backfillArchive, failures);
+            List<ArchiveSession> sessions = new ArrayList<>(results.size());
+            List<RegionContext> changed = new ArrayList<>(results.size());
+            for (Map.Entry<RegionContext, Backfilled> entry : results.entrySet()) {
+                sessions.add(entry.getValue().session);
+                if (entry.getValue().report.getInserted() > 0) {
+                    changed.add(entry.getKey());
+                }
+            }
+            PhotoIndex photos = changed.isEmpty() ? null : Wallpaper.loadPhotos(sessions);
+            Wallpaper.runRegions(executor, changed, "backfill.generate", context -> {
+                Wallpaper.regenerate(results.get(context).session, photos);
+                return null;
+            }, failures);
+            if (!failures.isEmpty()) {
+                throw failures.get(0);
+            }
+            List<GapReport> reports = new ArrayList<>(results.size());
+            for (Backfilled backfilled : results.values()) {
+                reports.add(backfilled.report);
+            }
+            return reports;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 补齐一个地区，有新记录时重新生成
+     *
+     * @param context
+     * @return
+     * @throws IOException
+     */
+    public GapReport backfillRegion(RegionContext context) throws IOException {
+        Backfilled backfilled = backfillArchive(context);
+        if (backfilled.report.getInserted() > 0) {
+            Wallpaper.regenerate(backfilled.session,
+                Wallpaper.loadPhotos(Collections.singletonList(backfilled.session)));
+        }
+        return backfilled.report;
+    }
+
+    /**
+     * 分页获取一个地区并把归档中没有的日期写入归档，不生成网站
+     */
+    Backfilled backfillArchive(RegionContext context) throws IOException {
+        // 同一日期以先返回的为准，即离今天最近的一页
+        Map<String, Images> fetched = new LinkedHashMap<>();
+        int idx = 0;
+        for (int page = 0; page < maxPages; page++) {
+            List<Images> images = fetchPage(context.getRegion(), idx);
+            int newDates = 0;
+            for (Images image : images) {
+                if (fetched.putIfAbsent(image.getDate(), image) == null) {
+                    newDates++;
+                }
+            }
+            // 超出接口能回溯的范围后会重复返回最后一页
+            if (newDates == 0) {
+                break;
+            }
+            idx += images.size();
+        }
+
+        List<Images> absent = BingFileUtils.filterAbsentDates(context, new ArrayList<>(fetched.values()));
+        int inserted = BingFileUtils.insertBing(context, absent);
+        ArchiveSession session = ArchiveSession.load(context);
+        GapReport report = GapReport.of(context.getRegion(), session.getImages(), fetched.size(), inserted);
+        report.write(context.getCacheRoot().resolve("backfill"));
+        return new Backfilled(session, report);
+    }
+
+    private List<Images> fetchPage(String region, int idx) throws IOException {
+        rateLimiter.acquire();
+        String url = BingApiUtils.getApiUrl(region, idx, BingApiUtils.MAX_IMAGES);
+        byte[] body = httpClient.get(new HttpRequest(url), BackfillEngine::readBytes).getBody();
+        if (recordRoot != null) {
+            FileWriteUtils.writeIfChanged(FixtureHttpClient.getFixturePath(recordRoot, url), body);
+        }
+        List<Images> images = BingApiUtils.parseImages(new ByteArrayInputStream(body));
+        LogUtils.log("backfill page,region:%s,idx:%d,images:%d", region, idx, images.size());
+        return images;
+    }
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[8 * 1024];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            out.write(buffer, 0, len);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 已经写入归档的地区
+     */
+    static class Backfilled {
+        private final ArchiveSession session;
+        private final GapReport report;
+
+        Backfilled(ArchiveSession session, GapReport report) {
+            this.session = session;
+            this.report = report;
+        }
+
+        ArchiveSession getSession() {
+            return session;
+        }
+
+        GapReport getReport() {
+            return report;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.wdbyte.bing.backfill;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import com.wdbyte.bing.http.HttpClient;
+import com.wdbyte.bing.http.HttpRequest;
+import com.wdbyte.bing.http.HttpResponse;
+import com.wdbyte.bing.http.ResponseHandler;
+
+/**
+ * 回放录制的接口响应，用于没有网络的环境
+ * <p>
+ * 响应文件按 {fixtureRoot}/{setmkt}/idx-{idx}.json 存放，和 {@link BackfillEngine} 录制时的路径一致；
+ * 没有对应文件时视为接口返回空列表。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class FixtureHttpClient implements HttpClient {
+
+    private static final byte[] EMPTY_RESPONSE = "{\"images\":[]}".getBytes();
+
+    private final Path fixtureRoot;
+
+    public FixtureHttpClient(Path fixtureRoot) {
+        this.fixtureRoot = fixtureRoot;
+    }
+
+    @Override
+    public <T> HttpResponse<T> get(HttpRequest request, ResponseHandler<T> handler) throws IOException {
+        Path path = getFixturePath(fixtureRoot, request.getUrl());
+        if (!Files.exists(path)) {
+            return new HttpResponse<>(200, handler.handle(new ByteArrayInputStream(EMPTY_RESPONSE)), null);
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return new HttpResponse<>(200, handler.handle(in), null);
+        }
+    }
+
+    /**
+     * 接口地址对应的响应文件
+     *
+     * @param fixtureRoot
+     * @param url
+     * @return
+     */
+    public static Path getFixturePath(Path fixtureRoot, String url) {
+        String region = getQueryParameter(url, "setmkt");
+        String idx = getQueryParameter(url, "idx");
+        return fixtureRoot.resolve(region == null ? "default" : region.toLowerCase(Locale.ROOT))
+            .resolve("idx-" + (idx == null ? "0" : idx) + ".json");
+    }
+
+    private static String getQueryParameter(String url, String name) {
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return null;
+        }
+        for (String param : url.substring(query + 1).split("&")) {
+            int eq = param.indexOf('=');
+            if (eq > 0 && param.substring(0, eq).equals(name)) {
+                return param.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,144 @@
+package com.wdbyte.bing.backfill;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.Images;
+
+/**
+ * 补齐后的归档缺失日期报告
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class GapReport {
+
+    private String region;
+    /**
+     * 接口返回的不同日期数量
+     */
+    private int fetched;
+    /**
+     * 实际插入归档的数量
+     */
+    private int inserted;
+    private String firstDate;
+    private String lastDate;
+    /**
+     * 归档第一天到最后一天之间缺失的日期，连续的日期合并为 开始~结束
+     */
+    private List<String> gaps = new ArrayList<>();
+    private int missingDays;
+
+    /**
+     * 根据归档中的图片统计缺失的日期
+     *
+     * @param region
+     * @param imagesList
+     * @param fetched
+     * @param inserted
+     * @return
+     */
+    public static GapReport of(String region, List<Images> imagesList, int fetched, int inserted) {
+        GapReport report = new GapReport();
+        report.region = region;
+        report.fetched = fetched;
+        report.inserted = inserted;
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        for (Images images : imagesList) {
+            dates.add(LocalDate.ofEpochDay(images.getEpochDay()));
+        }
+        if (dates.isEmpty()) {
+            return report;
+        }
+        report.firstDate = dates.first().toString();
+        report.lastDate = dates.last().toString();
+        LocalDate previous = null;
+        for (LocalDate date : dates) {
+            if (previous != null && previous.plusDays(1).isBefore(date)) {
+                LocalDate gapStart = previous.plusDays(1);
+                LocalDate gapEnd = date.minusDays(1);
+                report.gaps.add(gapStart.equals(gapEnd) ? gapStart.toString() : gapStart + "~" + gapEnd);
+                report.missingDays += (int)(gapEnd.toEpochDay() - gapStart.toEpochDay() + 1);
+            }
+            previous = date;
+        }
+        return report;
+    }
+
+    /**
+     * 写入 {dir}/{region}.json
+     *
+     * @param dir
+     * @throws IOException
+     */
+    public void write(Path dir) throws IOException {
+        byte[] content = JSON.toJSONString(this, SerializerFeature.PrettyFormat).getBytes(StandardCharsets.UTF_8);
+        FileWriteUtils.writeIfChanged(dir.resolve(region + ".json"), content);
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public int getFetched() {
+        return fetched;
+    }
+
+    public void setFetched(int fetched) {
+        this.fetched = fetched;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public String getFirstDate() {
+        return firstDate;
+    }
+
+    public void setFirstDate(String firstDate) {
+        this.firstDate = firstDate;
+    }
+
+    public String getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(String lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public List<String> getGaps() {
+        return gaps;
+    }
+
+    public void setGaps(List<String> gaps) {
+        this.gaps = gaps;
+    }
+
+    public int getMissingDays() {
+        return missingDays;
+    }
+
+    public void setMissingDays(int missingDays) {
+        this.missingDays = missingDays;
+    }
+}
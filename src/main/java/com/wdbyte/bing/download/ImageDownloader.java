@@ -0,0 +1,312 @@
+package com.wdbyte.bing.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.HttpUtls;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.Wallpaper;
+import com.wdbyte.bing.http.HttpClient;
+import com.wdbyte.bing.http.HttpRequest;
+import com.wdbyte.bing.http.ResponseHandler;
+import com.wdbyte.bing.store.PhotoIndex;
+
+/**
+ * 并行下载图片到本地的 {@link ImageStore}
+ * <p>
+ * 下载数量由固定大小的线程池限制；响应通过 NIO 通道分块写入磁盘并同时计算哈希，不在内存中保留整张图片。
+ * 中断的下载保留在 partial/ 下，下次通过 Range 请求续传，服务端不支持时从头下载。
+ * <p>
+ * 系统属性：
+ * bing.download.root 存储目录，默认 .cache/images；
+ * bing.download.concurrency 同时下载数，默认 4；
+ * bing.download.variants 下载的尺寸，逗号分隔，默认全部，见 {@link ImageVariant}；
+ * bing.download.days 只下载最近若干天，默认 0 表示全部；
+ * bing.photos.dedupe 为 true 时同一张照片只下载主地区的地址。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ImageDownloader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final HttpClient httpClient;
+    private final ImageStore store;
+    private final int concurrency;
+
+    public ImageDownloader(HttpClient httpClient, ImageStore store, int concurrency) {
+        this.httpClient = httpClient;
+        this.store = store;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * 启动参数可以指定需要下载的地区，不指定时使用默认地区列表
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        ImageStore store = ImageStore.open(Paths.get(System.getProperty("bing.download.root", ".cache/images")));
+        ImageDownloader downloader = new ImageDownloader(HttpUtls.getHttpClient(), store,
+            Integer.getInteger("bing.download.concurrency", 4));
+        ImageVariant[] variants = ImageVariant.parse(System.getProperty("bing.download.variants", "uhd,large,preview,small"));
+        int days = Integer.getInteger("bing.download.days", 0);
+
+        String[] regions = args.length > 0 ? args : Wallpaper.getDefaultRegions();
+        // 按照片去重时其他地区的同一张照片只下载主地区的地址
+        PhotoIndex photos = Boolean.getBoolean(PhotoIndex.DEDUPE_PROPERTY)
+            ? PhotoIndex.load(Wallpaper.getDefaultRegions()) : null;
+        List<Images> imagesList = new ArrayList<>();
+        for (String region : regions) {
+            RegionContext context = RegionContext.of(region);
+            List<Images> regionImages = BingFileUtils.readBing(context);
+            for (Images images : days > 0 && regionImages.size() > days ? regionImages.subList(0, days) : regionImages) {
+                if (photos == null || photos.isPrimary(context.getRegion(), images)) {
+                    imagesList.add(images);
+                }
+            }
+        }
+        Report report = downloader.download(getUrls(imagesList, variants));
+        LogUtils.log("image download finished,%s,root:%s", report, store.getRoot());
+        if (report.getFailed() > 0) {
+            throw new IOException("image download failed,count:" + report.getFailed());
+        }
+    }
+
+    /**
+     * 图片各个尺寸的地址，去掉重复地址
+     *
+     * @param imagesList
+     * @param variants
+     * @return
+     */
+    public static Set<String> getUrls(Collection<Images> imagesList, ImageVariant... variants) {
+        Set<String> urls = new LinkedHashSet<>();
+        for (Images images : imagesList) {
+            if (images.getUrl() == null) {
+                continue;
+            }
+            for (ImageVariant variant : variants) {
+                urls.add(variant.getUrl(images));
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 并行下载，已经在存储中的地址直接跳过；单个地址失败不影响其他地址，下载结束后保存索引
+     *
+     * @param urls
+     * @return
+     * @throws IOException
+     */
+    public Report download(Collection<String> urls) throws IOException {
+        Report report = new Report();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            Map<String, Future<?>> futureMap = new LinkedHashMap<>();
+            for (String url : new LinkedHashSet<>(urls)) {
+                if (store.lookup(url) != null) {
+                    report.skipped.incrementAndGet();
+                    continue;
+                }
+                futureMap.put(url, executor.submit(() -> {
+                    download(url, report);
+                    return null;
+                }));
+            }
+            for (Map.Entry<String, Future<?>> entry : futureMap.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    report.failed.incrementAndGet();
+                    LogUtils.log("image download failed,url:%s,reason:%s", entry.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            store.write();
+        }
+        return report;
+    }
+
+    /**
+     * 下载单个地址，已有部分内容时续传；续传失败时删除已下载的部分重新下载一次
+     *
+     * @param url
+     * @param report
+     * @throws IOException
+     */
+    private void download(String url, Report report) throws IOException {
+        Path partialPath = store.getPartialPath(url);
+        Files.createDirectories(partialPath.getParent());
+        long offset = Files.exists(partialPath) ? Files.size(partialPath) : 0;
+        PartialDownload partial;
+        try {
+            partial = fetch(url, partialPath, offset);
+        } catch (IOException e) {
+            if (offset == 0) {
+                throw e;
+            }
+            LogUtils.log("image resume failed,restart download,url:%s,reason:%s", url, e.getMessage());
+            Files.deleteIfExists(partialPath);
+            partial = fetch(url, partialPath, 0);
+        }
+        if (partial.resumed) {
+            report.resumed.incrementAndGet();
+        }
+        report.bytes.addAndGet(partial.received);
+        if (store.commit(url, partialPath, partial.digest.digest())) {
+            report.downloaded.incrementAndGet();
+        } else {
+            report.deduplicated.incrementAndGet();
+        }
+    }
+
+    private PartialDownload fetch(String url, Path partialPath, long offset) throws IOException {
+        HttpRequest request = new HttpRequest(url);
+        if (offset > 0) {
+            // 压缩后的响应不能按原始字节续传
+            request.header("Range", "bytes=" + offset + "-").header("Accept-Encoding", "identity");
+        }
+        return httpClient.get(request, new PartialDownload(partialPath, offset)).getBody();
+    }
+
+    /**
+     * 把响应写入下载中文件
+     * <p>
+     * 请求失败重试时同一个对象会被再次调用，每次都从请求的偏移位置重新写入。
+     */
+    private static class PartialDownload implements ResponseHandler<PartialDownload> {
+        private final Path path;
+        private final long offset;
+        private MessageDigest digest;
+        private long received;
+        private boolean resumed;
+
+        PartialDownload(Path path, long offset) {
+            this.path = path;
+            this.offset = offset;
+        }
+
+        @Override
+        public PartialDownload handle(InputStream in) throws IOException {
+            return handle(200, in);
+        }
+
+        @Override
+        public PartialDownload handle(int status, InputStream in) throws IOException {
+            resumed = status == 206 && offset > 0;
+            digest = ImageStore.newDigest("SHA-256");
+            received = 0;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+                long position = resumed ? offset : 0;
+                channel.truncate(position);
+                if (resumed) {
+                    // 已下载的部分也要计入哈希
+                    while (channel.read(buffer) != -1) {
+                        buffer.flip();
+                        digest.update(buffer);
+                        buffer.clear();
+                    }
+                }
+                channel.position(position);
+                ReadableByteChannel source = Channels.newChannel(in);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    ByteBuffer hashed = buffer.duplicate();
+                    digest.update(hashed);
+                    while (buffer.hasRemaining()) {
+                        received += channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                channel.force(false);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * 下载统计
+     */
+    public static class Report {
+        private final AtomicInteger downloaded = new AtomicInteger();
+        private final AtomicInteger deduplicated = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger resumed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+
+        /**
+         * 新增的图片
+         */
+        public int getDownloaded() {
+            return downloaded.get();
+        }
+
+        /**
+         * 下载后发现和已有图片内容相同
+         */
+        public int getDeduplicated() {
+            return deduplicated.get();
+        }
+
+        /**
+         * 已经在存储中，没有请求
+         */
+        public int getSkipped() {
+            return skipped.get();
+        }
+
+        public int getResumed() {
+            return resumed.get();
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("downloaded:%d,deduplicated:%d,skipped:%d,resumed:%d,failed:%d,bytes:%d",
+                getDownloaded(), getDeduplicated(), getSkipped(), getResumed(), getFailed(), getBytes());
+        }
+    }
+}
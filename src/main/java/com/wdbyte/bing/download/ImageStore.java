@@ -0,0 +1,167 @@
+package com.wdbyte.bing.download;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+
+import com.wdbyte.bing.FileWriteUtils;
+
+/**
+ * 按内容寻址的本地图片存储
+ * <p>
+ * 图片按 SHA-256 存放在 objects/{前两位}/{哈希}.{扩展名}，不同地区、不同地址的相同图片只保存一份；
+ * index.json 记录图片地址到对象路径的映射，下载中的文件放在 partial/ 下，用于断点续传。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ImageStore {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+    /**
+     * 图片地址 -> 相对 root 的对象路径
+     */
+    private final Map<String, String> index;
+
+    private ImageStore(Path root, Map<String, String> index) {
+        this.root = root;
+        this.index = index;
+    }
+
+    /**
+     * 打开存储目录，索引文件不存在或者无法解析时从空索引开始
+     *
+     * @param root
+     * @return
+     * @throws IOException
+     */
+    public static ImageStore open(Path root) throws IOException {
+        Path indexPath = root.resolve("index.json");
+        Map<String, String> index = null;
+        if (Files.exists(indexPath)) {
+            try {
+                index = JSON.parseObject(new String(Files.readAllBytes(indexPath), StandardCharsets.UTF_8),
+                    new TypeReference<Map<String, String>>() {});
+            } catch (RuntimeException e) {
+                index = null;
+            }
+        }
+        return new ImageStore(root, index == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(index));
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 地址对应的本地文件，没有下载过或者文件已被删除时返回 null
+     *
+     * @param url
+     * @return
+     */
+    public Path lookup(String url) {
+        String object = index.get(url);
+        if (object == null) {
+            return null;
+        }
+        Path path = root.resolve(object);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * 地址对应的下载中文件
+     *
+     * @param url
+     * @return
+     */
+    public Path getPartialPath(String url) {
+        return root.resolve("partial").resolve(toHex(digest("SHA-1", url.getBytes(StandardCharsets.UTF_8))) + ".part");
+    }
+
+    /**
+     * 把下载完成的文件移入存储，相同内容的对象已经存在时删除下载的文件
+     *
+     * @param url
+     * @param partialPath
+     * @param sha256
+     * @return 是否新增了对象，false 表示和已有对象重复
+     * @throws IOException
+     */
+    public boolean commit(String url, Path partialPath, byte[] sha256) throws IOException {
+        String hash = toHex(sha256);
+        String object = "objects/" + hash.substring(0, 2) + "/" + hash + "." + getExtension(url);
+        Path objectPath = root.resolve(object);
+        boolean created;
+        synchronized (this) {
+            if (Files.isRegularFile(objectPath)) {
+                Files.delete(partialPath);
+                created = false;
+            } else {
+                Files.createDirectories(objectPath.getParent());
+                FileWriteUtils.replace(partialPath, objectPath);
+                created = true;
+            }
+        }
+        index.put(url, object);
+        return created;
+    }
+
+    /**
+     * 保存索引，内容没有变化时不写入
+     *
+     * @throws IOException
+     */
+    public void write() throws IOException {
+        FileWriteUtils.writeIfChanged(root.resolve("index.json"),
+            JSON.toJSONString(new TreeMap<>(index)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 图片地址中 id 参数的扩展名，如 th?id=OHR.X_UHD.jpg&w=1000 为 jpg，没有时为 jpg
+     *
+     * @param url
+     * @return
+     */
+    static String getExtension(String url) {
+        int start = url.indexOf("id=");
+        int end = url.indexOf('&', Math.max(start, 0));
+        String id = start < 0 ? url : url.substring(start + 3, end < 0 ? url.length() : end);
+        int dot = id.lastIndexOf('.');
+        if (dot < 0 || dot == id.length() - 1 || id.length() - dot > 6) {
+            return "jpg";
+        }
+        return id.substring(dot + 1).toLowerCase();
+    }
+
+    static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) {
+        return newDigest(algorithm).digest(content);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
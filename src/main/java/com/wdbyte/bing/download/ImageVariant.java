@@ -0,0 +1,79 @@
+package com.wdbyte.bing.download;
+
+import com.wdbyte.bing.Images;
+
+/**
+ * 网站引用的图片尺寸，和 {@link com.wdbyte.bing.html.HtmlConstant.ImgCard} 中的地址保持一致
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public enum ImageVariant {
+
+    /**
+     * 4k 原图
+     */
+    UHD(null, 0, 0),
+    /**
+     * 详情页和今日大图
+     */
+    LARGE("&w=1000", 1000, 0),
+    /**
+     * 图片卡片预览，按 16:9 裁剪
+     */
+    PREVIEW("&pid=hp&w=384&h=216&rs=1&c=4", 384, 216),
+    /**
+     * 图片卡片加载前的占位小图
+     */
+    SMALL("&pid=hp&w=50", 50, 0);
+
+    private final String suffix;
+    private final int width;
+    private final int height;
+
+    ImageVariant(String suffix, int width, int height) {
+        this.suffix = suffix;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * 缩略图宽度，原图为 0
+     *
+     * @return
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 缩略图高度，为 0 时按原图比例计算
+     *
+     * @return
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public String getUrl(Images images) {
+        if (suffix == null) {
+            return images.getUrl();
+        }
+        return images.getSimpleUrl() + suffix;
+    }
+
+    /**
+     * 解析逗号分隔的尺寸名称，忽略大小写
+     *
+     * @param names
+     * @return
+     */
+    public static ImageVariant[] parse(String names) {
+        String[] split = names.split(",");
+        ImageVariant[] variants = new ImageVariant[split.length];
+        for (int i = 0; i < split.length; i++) {
+            variants[i] = valueOf(split[i].trim().toUpperCase());
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,311 @@
+package com.wdbyte.bing.download;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.Wallpaper;
+import com.wdbyte.bing.html.HtmlFileUtils;
+import com.wdbyte.bing.store.PhotoIndex;
+
+/**
+ * 从 {@link ImageStore} 中的 4k 原图生成网站使用的缩略图
+ * <p>
+ * 每张原图只解码一次：按最大缺失尺寸计算采样间隔，解码时隔行隔列读取，4k 原图解码后只占目标尺寸 1~2 倍的内存；
+ * 再逐级减半缩放到各个尺寸。有 webp 编码器时输出 webp，否则输出渐进式 jpeg。
+ * <p>
+ * 系统属性：
+ * bing.download.root 原图存储目录，默认 .cache/images；
+ * bing.thumbnail.parallelism 同时处理的图片数，默认 CPU 核数；
+ * bing.photos.dedupe 为 true 时同一张照片只为主地区生成，其他地区共用。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ThumbnailGenerator {
+
+    private static final ImageVariant[] VARIANTS = {ImageVariant.LARGE, ImageVariant.PREVIEW, ImageVariant.SMALL};
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final ImageStore store;
+    private final Path thumbnailRoot;
+    private final int parallelism;
+    private final String format;
+
+    public ThumbnailGenerator(ImageStore store, Path thumbnailRoot, int parallelism) {
+        this.store = store;
+        this.thumbnailRoot = thumbnailRoot;
+        this.parallelism = Math.max(1, parallelism);
+        this.format = ImageIO.getImageWritersByFormatName("webp").hasNext() ? "webp" : "jpg";
+    }
+
+    /**
+     * 启动参数可以指定地区，不指定时使用默认地区列表
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        ImageStore store = ImageStore.open(Paths.get(System.getProperty("bing.download.root", ".cache/images")));
+        ThumbnailGenerator generator = new ThumbnailGenerator(store, HtmlFileUtils.getThumbnailRoot(),
+            Integer.getInteger("bing.thumbnail.parallelism", Runtime.getRuntime().availableProcessors()));
+        String[] regions = args.length > 0 ? args : Wallpaper.getDefaultRegions();
+        PhotoIndex photos = Boolean.getBoolean(PhotoIndex.DEDUPE_PROPERTY)
+            ? PhotoIndex.load(Wallpaper.getDefaultRegions()) : null;
+        Map<String, List<Images>> regionMap = new LinkedHashMap<>();
+        List<Images> imagesList = new ArrayList<>();
+        for (String region : regions) {
+            List<Images> regionImages = BingFileUtils.readBing(RegionContext.of(region));
+            regionMap.put(region, regionImages);
+            for (Images images : regionImages) {
+                if (photos == null || photos.isPrimary(region, images)) {
+                    imagesList.add(images);
+                }
+            }
+        }
+        generator.generate(imagesList);
+        if (photos != null) {
+            for (Map.Entry<String, List<Images>> entry : regionMap.entrySet()) {
+                generator.alias(entry.getKey(), entry.getValue(), photos);
+            }
+        }
+    }
+
+    /**
+     * 为已下载原图的图片生成缩略图，已有的尺寸跳过；单张图片失败不影响其他图片
+     *
+     * @param imagesList
+     * @return 生成了缩略图的原图数量
+     * @throws IOException
+     */
+    public int generate(Collection<Images> imagesList) throws IOException {
+        ThumbnailIndex index = ThumbnailIndex.read(thumbnailRoot);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        int generated = 0;
+        int failed = 0;
+        try {
+            Map<String, Future<Boolean>> futureMap = new LinkedHashMap<>();
+            for (Images images : imagesList) {
+                String url = images.getUrl();
+                if (url == null || futureMap.containsKey(url)) {
+                    continue;
+                }
+                Path original = store.lookup(url);
+                if (original == null) {
+                    continue;
+                }
+                futureMap.put(url, executor.submit(() -> {
+                    String object = getObject(original);
+                    boolean created = resize(original, object);
+                    index.put(url, object);
+                    return created;
+                }));
+            }
+            for (Map.Entry<String, Future<Boolean>> entry : futureMap.entrySet()) {
+                try {
+                    if (entry.getValue().get()) {
+                        generated++;
+                    }
+                } catch (ExecutionException e) {
+                    failed++;
+                    LogUtils.log("thumbnail generate failed,url:%s,reason:%s", entry.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            index.write(thumbnailRoot);
+        }
+        LogUtils.log("thumbnail generate finished,generated:%d,failed:%d,total:%d,format:%s", generated, failed,
+            index.size(), format);
+        return generated;
+    }
+
+    /**
+     * 按照片去重时其他地区的图片没有下载原图，让它们的地址指向主地区已生成的缩略图
+     *
+     * @param region
+     * @param imagesList 该地区的图片
+     * @param photos
+     * @return 新增的地址数
+     * @throws IOException
+     */
+    public int alias(String region, Collection<Images> imagesList, PhotoIndex photos) throws IOException {
+        ThumbnailIndex index = ThumbnailIndex.read(thumbnailRoot);
+        int aliased = 0;
+        for (Images images : imagesList) {
+            if (images.getUrl() == null || index.get(images.getUrl()) != null) {
+                continue;
+            }
+            String object = index.get(photos.getPrimary(region, images).getUrl());
+            if (object != null) {
+                index.put(images.getUrl(), object);
+                aliased++;
+            }
+        }
+        if (aliased > 0) {
+            index.write(thumbnailRoot);
+        }
+        LogUtils.log("thumbnail alias finished,region:%s,aliased:%d", region, aliased);
+        return aliased;
+    }
+
+    /**
+     * 缩略图文件名沿用原图的哈希
+     */
+    private String getObject(Path original) {
+        String fileName = original.getFileName().toString();
+        String hash = fileName.substring(0, fileName.lastIndexOf('.'));
+        return hash.substring(0, 2) + "/" + hash + "." + format;
+    }
+
+    /**
+     * 生成缺失的尺寸
+     *
+     * @return 是否生成了新文件
+     */
+    private boolean resize(Path original, String object) throws IOException {
+        List<ImageVariant> missing = new ArrayList<>(VARIANTS.length);
+        for (ImageVariant variant : VARIANTS) {
+            if (!Files.exists(thumbnailRoot.resolve(ThumbnailIndex.getVariantPath(object, variant)))) {
+                missing.add(variant);
+            }
+        }
+        if (missing.isEmpty()) {
+            return false;
+        }
+        // VARIANTS 按宽度从大到小排列，上一个尺寸的结果作为下一个尺寸的输入
+        BufferedImage image = read(original, missing.get(0).getWidth());
+        for (ImageVariant variant : missing) {
+            image = scale(image, variant);
+            write(image, thumbnailRoot.resolve(ThumbnailIndex.getVariantPath(object, variant)));
+        }
+        return true;
+    }
+
+    /**
+     * 按目标宽度采样解码，解码结果的宽度不小于目标宽度的两倍
+     * <p>
+     * 子采样是直接抽取像素，没有滤波，直接抽到目标宽度会产生锯齿；保留至少一倍余量，
+     * 由 {@link #scale} 至少做一次双线性减半完成平滑。
+     */
+    private static BufferedImage read(Path path, int targetWidth) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("unsupported image format,path:" + path);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int subsampling = Math.max(1, reader.getWidth(0) / (2 * targetWidth));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 缩放到指定尺寸，宽高比不同时居中裁剪；缩小超过一半时逐级减半，避免双线性插值丢失细节
+     */
+    private static BufferedImage scale(BufferedImage source, ImageVariant variant) {
+        int width = Math.min(variant.getWidth(), source.getWidth());
+        int height = variant.getHeight() > 0
+            ? Math.min(variant.getHeight(), source.getHeight())
+            : Math.max(1, Math.round((float)source.getHeight() * width / source.getWidth()));
+        // 按目标宽高比裁剪原图
+        int cropWidth = source.getWidth();
+        int cropHeight = source.getHeight();
+        if ((long)cropWidth * height > (long)cropHeight * width) {
+            cropWidth = (int)((long)cropHeight * width / height);
+        } else {
+            cropHeight = (int)((long)cropWidth * height / width);
+        }
+        BufferedImage image = source;
+        int x = (source.getWidth() - cropWidth) / 2;
+        int y = (source.getHeight() - cropHeight) / 2;
+        while (cropWidth / 2 >= width && cropHeight / 2 >= height) {
+            image = draw(image, x, y, cropWidth, cropHeight, cropWidth / 2, cropHeight / 2);
+            cropWidth /= 2;
+            cropHeight /= 2;
+            x = 0;
+            y = 0;
+        }
+        if (x == 0 && y == 0 && cropWidth == width && cropHeight == height && image.getWidth() == width
+            && image.getHeight() == height) {
+            return image;
+        }
+        return draw(image, x, y, cropWidth, cropHeight, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int x, int y, int sourceWidth, int sourceHeight,
+        int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, x, y, x + sourceWidth, y + sourceHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, Path path) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("webp".equals(format) ? "webp" : "jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (!"webp".equals(format)) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        }
+        Path tempPath = FileWriteUtils.createTempFile(path);
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tempPath.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        FileWriteUtils.replace(tempPath, path);
+    }
+}
@@ -0,0 +1,107 @@
+package com.wdbyte.bing.download;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.Images;
+
+/**
+ * 已生成的本地缩略图
+ * <p>
+ * 缩略图和网站一起发布在 /thumbs/ 下，index.json 记录 4k 原图地址到缩略图文件名的映射，
+ * 文件名为 {前两位}/{原图哈希}.{扩展名}，各尺寸的文件在扩展名前加上宽度，如 ab/abcd-w384.jpg。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ThumbnailIndex {
+
+    public static final String INDEX_FILE_NAME = "index.json";
+    /**
+     * 缩略图目录在网站中的路径
+     */
+    public static final String URL_PREFIX = "/thumbs/";
+
+    /**
+     * 4k 原图地址 -> 缩略图文件名
+     */
+    private final Map<String, String> objects;
+
+    private ThumbnailIndex(Map<String, String> objects) {
+        this.objects = objects;
+    }
+
+    /**
+     * 读取缩略图目录中的索引，不存在或者无法解析时返回空索引
+     *
+     * @param thumbnailRoot
+     * @return
+     * @throws IOException
+     */
+    public static ThumbnailIndex read(Path thumbnailRoot) throws IOException {
+        Path path = thumbnailRoot.resolve(INDEX_FILE_NAME);
+        Map<String, String> objects = null;
+        if (Files.exists(path)) {
+            try {
+                objects = JSON.parseObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8),
+                    new TypeReference<Map<String, String>>() {});
+            } catch (RuntimeException e) {
+                objects = null;
+            }
+        }
+        return new ThumbnailIndex(objects == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(objects));
+    }
+
+    public String get(String url) {
+        return objects.get(url);
+    }
+
+    public void put(String url, String object) {
+        objects.put(url, object);
+    }
+
+    public int size() {
+        return objects.size();
+    }
+
+    /**
+     * 图片在网站中的本地地址，没有生成该尺寸时返回 null
+     *
+     * @param images
+     * @param variant
+     * @return
+     */
+    public String getUrl(Images images, ImageVariant variant) {
+        String object = objects.get(images.getUrl());
+        if (object == null || variant == ImageVariant.UHD) {
+            return null;
+        }
+        return URL_PREFIX + getVariantPath(object, variant);
+    }
+
+    /**
+     * 缩略图文件名对应尺寸的文件路径
+     *
+     * @param object
+     * @param variant
+     * @return
+     */
+    public static String getVariantPath(String object, ImageVariant variant) {
+        int dot = object.lastIndexOf('.');
+        return object.substring(0, dot) + "-w" + variant.getWidth() + object.substring(dot);
+    }
+
+    public void write(Path thumbnailRoot) throws IOException {
+        FileWriteUtils.writeIfChanged(thumbnailRoot.resolve(INDEX_FILE_NAME),
+            JSON.toJSONString(new TreeMap<>(objects)).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,7 +1,11 @@
 package com.wdbyte.bing.html;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.wdbyte.bing.Images;
-import com.wdbyte.bing.Wallpaper;
+import com.wdbyte.bing.download.ImageVariant;
+import com.wdbyte.bing.download.ThumbnailIndex;
 
 /**
  * @author niulang
@@ -16,14 +20,26 @@ public class HtmlConstant {
         public static final String VAR_SIDABAR = "${sidabar}";
         public static final String VAR_SIDABAR_NOW_COLOR = "w3-green";
         public static final String VAR_SIDABAR_COLOR = "w3-hover-green";
+        private static final String VAR_SIDABAR_HREF_URL = "${sidabar_href_url}";
+        private static final String VAR_SIDABAR_HREF_TITLE = "${sidabar_href_title}";
+        private static final String VAR_SIDABAR_HREF_COLOR = "${sidabar_href_color}";
         /**
          * <a href="#" onclick="w3_close()" class="w3-bar-item w3-button w3-hover-text-green w3-large">2022-08</a>
          */
-        private static final String SIDABAR_MENU = "<a href=\"${sidabar_href_url}\" onclick=\"w3_close()\" class=\"w3-bar-item w3-button w3-hover-green w3-large\">${sidabar_href_title}</a>";
+        private static final HtmlTemplate SIDABAR_MENU = HtmlTemplate.compile("<a href=\"${sidabar_href_url}\" onclick=\"w3_close()\" class=\"w3-bar-item w3-button ${sidabar_href_color} w3-large\">${sidabar_href_title}</a>");
 
         public static String getSidabarMenuList(String hrefUrl, String hrefTitle) {
-            String result = SIDABAR_MENU.replace("${sidabar_href_url}", hrefUrl);
-            return result.replace("${sidabar_href_title}", hrefTitle);
+            StringBuilder result = new StringBuilder(SIDABAR_MENU.getLength() + 32);
+            appendSidabarMenu(result, hrefUrl, hrefTitle, false);
+            return result.toString();
+        }
+
+        public static void appendSidabarMenu(StringBuilder out, String hrefUrl, String hrefTitle, boolean now) {
+            Map<String, String> values = new HashMap<>(4);
+            values.put(VAR_SIDABAR_HREF_URL, hrefUrl);
+            values.put(VAR_SIDABAR_HREF_TITLE, hrefTitle);
+            values.put(VAR_SIDABAR_HREF_COLOR, now ? VAR_SIDABAR_NOW_COLOR : VAR_SIDABAR_COLOR);
+            SIDABAR_MENU.render(out, values);
         }
     }
 
@@ -41,30 +57,67 @@ public class HtmlConstant {
      */
     public static class ImgCard {
         public static final String VAR_IMG_CARD_LIST = "${img_card_list}";
-        private static final String VAR_IMG_CARD_URL = "${img_card_url}";
+        private static final String VAR_IMG_CARD_SMALL_URL = "${img_card_small_url}";
         private static final String VAR_IMG_DETAIL_URL = "${img_detail_url}";
         private static final String VAR_IMG_CRARD_REGION = "${img_card_region}";
 
-        private static final String VAR_IMG_CARD_DOWNLOAD_URL_PREVIEW = "${img_card_download_url_preview}";
+        private static final String VAR_IMG_CARD_PREVIEW_URL = "${img_card_preview_url}";
         private static final String VAR_IMG_CARD_DOWNLOAD_URL = "${img_card_download_url}";
         private static final String VAR_IMG_CARD_DATE = "${img_card_date}";
-        private static final String IMG_CARD = ""
+        private static final HtmlTemplate IMG_CARD = HtmlTemplate.compile(""
             + "<div class=\"w3-third \" style=\"position: relative;height:249px\">\n"
-            +"  <img class=\"smallImg\" src=\"${img_card_url}&pid=hp&w=50\"  style=\"width:95%;\" />"
-            + "<a href=\"${img_detail_url}\"  target=\"_blank\"> <img class=\"bigImg w3-hover-shadow\" src=\"${img_card_download_url_preview}&pid=hp&w=384&h=216&rs=1&c=4\" style=\"width:95%\" onload=\"imgloading(this)\"></a>\n"
+            +"  <img class=\"smallImg\" src=\"${img_card_small_url}\"  style=\"width:95%;\" />"
+            + "<a href=\"${img_detail_url}\"  target=\"_blank\"> <img class=\"bigImg w3-hover-shadow\" src=\"${img_card_preview_url}\" style=\"width:95%\" onload=\"imgloading(this)\"></a>\n"
             + " <p>${img_card_date} <a href=\"${img_card_download_url}\" target=\"_blank\">Download 4k</a> "
             + "<button class=\"like-button img-btn\" onclick=\"updateLove('${img_card_region}','${img_card_date}')\">喜欢</button>"
             + "</p>\n"
-            + "</div>";
-
-        public static String getImgCard(Images bingImage) {
-            String result = IMG_CARD.replace(VAR_IMG_CARD_URL, bingImage.getSimpleUrl());
-            result = result.replace(VAR_IMG_CARD_DOWNLOAD_URL_PREVIEW, bingImage.getSimpleUrl());
-            result = result.replace(VAR_IMG_CARD_DOWNLOAD_URL, bingImage.getUrl());
-            result = result.replace(VAR_IMG_DETAIL_URL, bingImage.getDetailUrlPath());
-            result = result.replace(VAR_IMG_DETAIL_URL, bingImage.getDetailUrlPath());
-            result = result.replace(VAR_IMG_CRARD_REGION, Wallpaper.CURRENT_REGION.toLowerCase());
-            return result.replace(VAR_IMG_CARD_DATE, bingImage.getDate());
+            + "</div>");
+
+        public static String getImgCard(Images bingImage, String region) {
+            StringBuilder result = new StringBuilder(IMG_CARD.getLength() + 256);
+            appendImgCard(result, bingImage, region);
+            return result.toString();
+        }
+
+        public static void appendImgCard(StringBuilder out, Images bingImage, String region) {
+            appendImgCard(out, bingImage, region, null);
+        }
+
+        /**
+         * 有本地缩略图时图片卡片使用本地地址，4k 下载仍然指向必应
+         *
+         * @param out
+         * @param bingImage
+         * @param region
+         * @param thumbnails 为 null 时全部使用必应地址
+         */
+        public static void appendImgCard(StringBuilder out, Images bingImage, String region,
+            ThumbnailIndex thumbnails) {
+            appendImgCard(out, bingImage, region, thumbnails, bingImage.getDetailUrlPath());
+        }
+
+        /**
+         * @param out
+         * @param bingImage
+         * @param region
+         * @param thumbnails 为 null 时全部使用必应地址
+         * @param detailUrl 详情页地址，照片的详情页在其他地区时为绝对路径
+         */
+        public static void appendImgCard(StringBuilder out, Images bingImage, String region,
+            ThumbnailIndex thumbnails, String detailUrl) {
+            Map<String, String> values = new HashMap<>(8);
+            values.put(VAR_IMG_CARD_SMALL_URL, getImageUrl(bingImage, ImageVariant.SMALL, thumbnails));
+            values.put(VAR_IMG_CARD_PREVIEW_URL, getImageUrl(bingImage, ImageVariant.PREVIEW, thumbnails));
+            values.put(VAR_IMG_CARD_DOWNLOAD_URL, bingImage.getUrl());
+            values.put(VAR_IMG_DETAIL_URL, detailUrl);
+            values.put(VAR_IMG_CRARD_REGION, region.toLowerCase());
+            values.put(VAR_IMG_CARD_DATE, bingImage.getDate());
+            IMG_CARD.render(out, values);
+        }
+
+        private static String getImageUrl(Images bingImage, ImageVariant variant, ThumbnailIndex thumbnails) {
+            String url = thumbnails == null ? null : thumbnails.getUrl(bingImage, variant);
+            return url != null ? url : variant.getUrl(bingImage);
         }
     }
     /**
@@ -77,10 +130,40 @@ public class HtmlConstant {
         public static final String VAR_MONTH_HISTORY_MONTH_COLOR = "w3-light-grey";
         private static final String VAR_MONTH_HISTORY_HREF_URL = "${month_href_url}";
         private static final String VAR_MONTH_HISTORY_HREF_TITLE = "${month_href_title}";
-        private static final String MONTH_HISTORY_HREF = "<a class=\"w3-tag w3-button w3-hover-green w3-light-grey w3-margin-bottom\" href=\"${month_href_url}\">${month_href_title}</a>";
+        private static final String VAR_MONTH_HISTORY_HREF_COLOR = "${month_href_color}";
+        private static final HtmlTemplate MONTH_HISTORY_HREF = HtmlTemplate.compile("<a class=\"w3-tag w3-button w3-hover-green ${month_href_color} w3-margin-bottom\" href=\"${month_href_url}\">${month_href_title}</a>");
         public static String getMonthHistory(String url,String title) {
-            String result = MONTH_HISTORY_HREF.replace(VAR_MONTH_HISTORY_HREF_URL, url);
-            return result.replace(VAR_MONTH_HISTORY_HREF_TITLE, title);
+            StringBuilder result = new StringBuilder(MONTH_HISTORY_HREF.getLength() + 32);
+            appendMonthHistory(result, url, title, false);
+            return result.toString();
+        }
+
+        public static void appendMonthHistory(StringBuilder out, String url, String title, boolean now) {
+            Map<String, String> values = new HashMap<>(4);
+            values.put(VAR_MONTH_HISTORY_HREF_URL, url);
+            values.put(VAR_MONTH_HISTORY_HREF_TITLE, title);
+            values.put(VAR_MONTH_HISTORY_HREF_COLOR, now ? VAR_MONTH_HISTORY_NOW_MONTH_COLOR : VAR_MONTH_HISTORY_MONTH_COLOR);
+            MONTH_HISTORY_HREF.render(out, values);
+        }
+    }
+
+    /**
+     * 跳转页，详情页移到其他地址后保留原地址
+     */
+    public static class Redirect {
+        private static final String VAR_REDIRECT_URL = "${redirect_url}";
+        private static final HtmlTemplate REDIRECT = HtmlTemplate.compile("<!DOCTYPE html>\n"
+            + "<html><head><meta charset=\"UTF-8\"><title>Bing Wallpaper</title>"
+            + "<link rel=\"canonical\" href=\"${redirect_url}\">"
+            + "<meta http-equiv=\"refresh\" content=\"0; url=${redirect_url}\"></head>"
+            + "<body><a href=\"${redirect_url}\">${redirect_url}</a></body></html>\n");
+
+        public static String getRedirect(String url) {
+            StringBuilder result = new StringBuilder(REDIRECT.getLength() + url.length() * 4);
+            Map<String, String> values = new HashMap<>(2);
+            values.put(VAR_REDIRECT_URL, url);
+            REDIRECT.render(result, values);
+            return result.toString();
         }
     }
 
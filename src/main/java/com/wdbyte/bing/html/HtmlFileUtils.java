@@ -1,12 +1,23 @@
 package com.wdbyte.bing.html;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
-import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.metrics.Metrics;
 
 /**
  * @author niulang
@@ -14,59 +25,218 @@ import com.wdbyte.bing.LogUtils;
  */
 public class HtmlFileUtils {
 
-    public static Path BING_HTML_ROOT = Paths.get("docs/");
-    private static Path BING_HTML_INDEX_TEMPLATE = Paths.get("docs/bing-template.html");
-    private static Path BING_HTML_DETAIL_TEMPLATE = Paths.get("docs/bing-detail.html");
-    private static Path BING_HTML_IMAGES_JSON = Paths.get("docs/images.json");
+    /**
+     * 为 true 时 html 和 json 文件同时输出 gzip 压缩后的 .gz 文件，静态服务器可以直接返回，不需要每次压缩
+     */
+    public static final String PRECOMPRESS_PROPERTY = "bing.html.precompress";
+    /**
+     * 小于这个大小的文件压缩收益很小，不输出 .gz
+     */
+    private static final int MIN_PRECOMPRESS_SIZE = 256;
 
-    public static String readImagesJson() throws IOException {
-        byte[] bytes = Files.readAllBytes(BING_HTML_IMAGES_JSON);
-        return new String(bytes);
+    /**
+     * 网站根目录，默认为 docs，例如基准测试在临时目录中生成网站；在类加载时读取
+     */
+    public static final String DOCS_ROOT_PROPERTY = "bing.docs.root";
+
+    private static final Path BING_HTML_ROOT = Paths.get(System.getProperty(DOCS_ROOT_PROPERTY, "docs"));
+    private static final Path BING_HTML_INDEX_TEMPLATE = BING_HTML_ROOT.resolve("bing-template.html");
+    private static final Path BING_HTML_DETAIL_TEMPLATE = BING_HTML_ROOT.resolve("bing-detail.html");
+    private static final Path BING_HTML_IMAGES_JSON = BING_HTML_ROOT.resolve("images.json");
+    private static final Path BING_HTML_IMAGES_SHARD_ROOT = BING_HTML_ROOT.resolve("images");
+    private static final Path BING_HTML_THUMBNAIL_ROOT = BING_HTML_ROOT.resolve("thumbs");
+    private static final Path BING_HTML_SEARCH_ROOT = BING_HTML_ROOT.resolve("search");
+
+    /**
+     * 已编译的模板，模板文件修改后重新加载
+     */
+    private static final Map<Path, CachedTemplate> TEMPLATE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 网站根目录，默认地区的页面直接输出到这里，其他地区输出到以地区代码命名的子目录
+     *
+     * @return
+     */
+    public static Path getHtmlRoot() {
+        return BING_HTML_ROOT;
+    }
+
+    /**
+     * 所有地区共享的 images.json
+     *
+     * @return
+     */
+    public static Path getImagesJsonPath() {
+        return BING_HTML_IMAGES_JSON;
     }
-    public static void writeImagesJson(String json) throws IOException {
-        Path path = BING_HTML_IMAGES_JSON;
-        write(path, json);
+
+    /**
+     * 按 地区/年份 分片的 images.json 根目录
+     *
+     * @return
+     */
+    public static Path getImagesShardRoot() {
+        return BING_HTML_IMAGES_SHARD_ROOT;
     }
 
-    public static String readIndexTemplateFile() throws IOException {
-        byte[] bytes = Files.readAllBytes(BING_HTML_INDEX_TEMPLATE);
-        return new String(bytes);
+    /**
+     * 本地缩略图目录，对应网站路径 /thumbs/
+     *
+     * @return
+     */
+    public static Path getThumbnailRoot() {
+        return BING_HTML_THUMBNAIL_ROOT;
     }
 
-    public static String readDetailTemplateFile() throws IOException {
-        byte[] bytes = Files.readAllBytes(BING_HTML_DETAIL_TEMPLATE);
-        return new String(bytes);
+    /**
+     * 所有地区共享的搜索索引目录，对应网站路径 /search/
+     *
+     * @return
+     */
+    public static Path getSearchRoot() {
+        return BING_HTML_SEARCH_ROOT;
     }
 
-    public static void writeIndexHtml(String html) throws IOException {
-        Path path = BING_HTML_ROOT.resolve("index.html");
-        write(path, html);
+    /**
+     * 获取编译后的首页模板
+     *
+     * @return
+     * @throws IOException
+     */
+    public static HtmlTemplate getIndexTemplate() throws IOException {
+        return getTemplate(BING_HTML_INDEX_TEMPLATE);
     }
 
-    public static void writeToday(String html) throws IOException {
-        Path path = BING_HTML_ROOT.resolve("today");
+    /**
+     * 获取编译后的详情页模板
+     *
+     * @return
+     * @throws IOException
+     */
+    public static HtmlTemplate getDetailTemplate() throws IOException {
+        return getTemplate(BING_HTML_DETAIL_TEMPLATE);
+    }
+
+    private static HtmlTemplate getTemplate(Path path) throws IOException {
+        FileTime lastModified = Files.getLastModifiedTime(path);
+        CachedTemplate cached = TEMPLATE_CACHE.get(path);
+        if (cached != null && cached.lastModified.equals(lastModified)) {
+            return cached.template;
+        }
+        String source = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        HtmlTemplate template = HtmlTemplate.compile(source);
+        TEMPLATE_CACHE.put(path, new CachedTemplate(template, lastModified));
+        return template;
+    }
+
+    public static void writeIndexHtml(RegionContext context, String html) throws IOException {
+        Path path = context.getHtmlRoot().resolve("index.html");
         write(path, html);
     }
 
-    public static void writeDetailHtml(String html, String urlPath) throws IOException {
-        Path path = BING_HTML_ROOT.resolve(urlPath);
+    public static void writeToday(RegionContext context, String html) throws IOException {
+        Path path = context.getHtmlRoot().resolve("today");
         write(path, html);
     }
 
+    /**
+     * 一次性创建详情页所在的目录（day/yyyyMM），写入详情页时不再逐个检查目录
+     *
+     * @param context
+     * @param urlPaths
+     * @throws IOException
+     */
+    public static void createDetailDirectories(RegionContext context, Collection<String> urlPaths) throws IOException {
+        Set<Path> directories = new HashSet<>();
+        for (String urlPath : urlPaths) {
+            directories.add(context.getHtmlRoot().resolve(urlPath).getParent());
+        }
+        for (Path directory : directories) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * 写入详情页，所在目录需要先通过 createDetailDirectories 创建
+     *
+     * @param context
+     * @param html
+     * @param urlPath
+     * @throws IOException
+     */
+    public static void writeDetailHtml(RegionContext context, String html, String urlPath) throws IOException {
+        write(context.getHtmlRoot().resolve(urlPath), html);
+    }
+
+    /**
+     * 内容和已有文件相同时跳过，不改变文件的修改时间，发布时 git 不会看到变化；
+     * 内容不同时通过临时文件和重命名替换，中途退出不会留下写了一半的页面
+     *
+     * @param path
+     * @param html
+     * @throws IOException
+     */
     private static void write(Path path, String html) throws IOException {
-        if (!Files.exists(path)) {
-            Path parent = path.getParent();
-            if (!Files.exists(parent)) {
-                Files.createDirectory(parent);
+        writeIfChanged(path, html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 写入网站文件，内容没有变化时跳过
+     * <p>
+     * 开启预压缩时，只为内容有变化或者还没有 .gz 的文件重新压缩；并行生成的页面在各自的写入线程中压缩。
+     * 内容有变化但不再输出 .gz 时（文件变小或者关闭了预压缩）删除旧的 .gz，避免静态服务器返回过期内容。
+     *
+     * @param path
+     * @param content
+     * @return 是否写入了文件
+     * @throws IOException
+     */
+    public static boolean writeIfChanged(Path path, byte[] content) throws IOException {
+        boolean written = FileWriteUtils.writeIfChanged(path, content);
+        Path gzipPath = path.resolveSibling(path.getFileName() + ".gz");
+        if (Boolean.getBoolean(PRECOMPRESS_PROPERTY) && isCompressible(path, content)) {
+            if (written || !Files.exists(gzipPath)) {
+                FileWriteUtils.writeAtomically(gzipPath, gzip(content));
+                Metrics.increment(Metrics.FILES_PRECOMPRESSED);
             }
-            Files.createFile(path);
+        } else if (written) {
+            Files.deleteIfExists(gzipPath);
         }
-        Files.write(path, html.getBytes(StandardCharsets.UTF_8));
-        LogUtils.log("html write to %s", path.toString());
+        return written;
+    }
+
+    private static boolean isCompressible(Path path, byte[] content) {
+        String fileName = path.getFileName().toString();
+        return content.length >= MIN_PRECOMPRESS_SIZE && (fileName.endsWith(".html") || fileName.endsWith(".json"));
     }
 
-    public static void writeMonthHtml(String month, String html) throws IOException {
-        Path path = BING_HTML_ROOT.resolve(month + ".html");
+    /**
+     * 最高压缩级别；GZIPOutputStream 的文件头不含时间戳，相同内容的压缩结果相同
+     */
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes, 8 * 1024) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void writeMonthHtml(RegionContext context, String month, String html) throws IOException {
+        Path path = context.getHtmlRoot().resolve(month + ".html");
         write(path, html);
     }
+
+    private static class CachedTemplate {
+        private final HtmlTemplate template;
+        private final FileTime lastModified;
+
+        CachedTemplate(HtmlTemplate template, FileTime lastModified) {
+            this.template = template;
+            this.lastModified = lastModified;
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package com.wdbyte.bing.html;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的 HTML 模板
+ * <p>
+ * 模板只解析一次，拆分为文本片段和 ${var} 变量，渲染时按顺序一次性写入 StringBuilder，
+ * 不再对整个页面反复执行 String.replace。
+ * <p>
+ * 变量名只包含字母、数字和下划线，页面脚本中的 ${year.toString()} 这类表达式原样保留；
+ * 渲染时没有提供值的变量也原样输出。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class HtmlTemplate {
+
+    /**
+     * 渲染时直接写入输出的片段，避免先拼接成字符串再整体复制
+     */
+    public interface Fragment {
+        void appendTo(StringBuilder out);
+    }
+
+    /**
+     * 文本片段，比变量多一个
+     */
+    private final String[] literals;
+    /**
+     * 变量，保存完整的占位符，如 ${head_title}
+     */
+    private final String[] vars;
+    private final int length;
+    private final String source;
+
+    private HtmlTemplate(String source, String[] literals, String[] vars) {
+        this.source = source;
+        this.literals = literals;
+        this.vars = vars;
+        int literalLength = 0;
+        for (String literal : literals) {
+            literalLength += literal.length();
+        }
+        this.length = literalLength;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param source
+     * @return
+     */
+    public static HtmlTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> vars = new ArrayList<>();
+        int literalStart = 0;
+        int index = source.indexOf("${");
+        while (index >= 0) {
+            int end = source.indexOf('}', index + 2);
+            if (end < 0) {
+                break;
+            }
+            if (isVarName(source, index + 2, end)) {
+                literals.add(source.substring(literalStart, index));
+                vars.add(source.substring(index, end + 1));
+                literalStart = end + 1;
+                index = source.indexOf("${", literalStart);
+            } else {
+                index = source.indexOf("${", index + 2);
+            }
+        }
+        literals.add(source.substring(literalStart));
+        return new HtmlTemplate(source, literals.toArray(new String[0]), vars.toArray(new String[0]));
+    }
+
+    /**
+     * 渲染模板
+     *
+     * @param values 占位符 -> 值，值可以是 CharSequence 或 Fragment
+     * @return
+     */
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(length + 1024);
+        render(out, values);
+        return out.toString();
+    }
+
+    /**
+     * 渲染模板并追加到 out
+     *
+     * @param out
+     * @param values 占位符 -> 值，值可以是 CharSequence 或 Fragment
+     */
+    public void render(StringBuilder out, Map<String, ?> values) {
+        for (int i = 0; i < vars.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(vars[i]);
+            if (value instanceof Fragment) {
+                ((Fragment)value).appendTo(out);
+            } else if (value != null) {
+                out.append((CharSequence)value);
+            } else {
+                out.append(vars[i]);
+            }
+        }
+        out.append(literals[vars.length]);
+    }
+
+    /**
+     * 模板中文本部分的长度，用于预估输出大小
+     *
+     * @return
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * 模板原文
+     *
+     * @return
+     */
+    public String getSource() {
+        return source;
+    }
+
+    private static boolean isVarName(String source, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (!(c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
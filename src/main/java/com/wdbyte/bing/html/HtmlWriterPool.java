@@ -0,0 +1,129 @@
+package com.wdbyte.bing.html;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.wdbyte.bing.metrics.Metrics;
+
+/**
+ * 页面渲染和写入线程池
+ * <p>
+ * 详情页和月度页面按批次分给固定大小的线程池并行渲染、写入，每个批次使用自己的 StringBuilder。
+ * 线程池由所有地区共享，并行度默认为 CPU 核数，可通过 -Dbing.html.parallelism 调整，设置为 1 时在当前线程执行。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class HtmlWriterPool {
+
+    public static final String PARALLELISM_PROPERTY = "bing.html.parallelism";
+
+    /**
+     * 每个线程分到的批次数，批次多一些可以让各线程的负载更均匀
+     */
+    private static final int BATCHES_PER_THREAD = 4;
+    private static final int MIN_BATCH_SIZE = 16;
+
+    private static final int PARALLELISM = Math.max(1,
+        Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+
+    private static volatile ExecutorService executor;
+
+    /**
+     * 批次任务
+     *
+     * @param <T>
+     */
+    @FunctionalInterface
+    public interface BatchTask<T> {
+        void run(List<T> batch) throws IOException;
+    }
+
+    /**
+     * 把 items 分成多个批次并行执行，等待所有批次完成，任一批次失败时抛出异常
+     *
+     * @param items
+     * @param task
+     * @param <T>
+     * @throws IOException
+     */
+    public static <T> void forEachBatch(List<T> items, BatchTask<T> task) throws IOException {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (PARALLELISM == 1 || items.size() <= MIN_BATCH_SIZE) {
+            task.run(items);
+            return;
+        }
+        int batchSize = Math.max(MIN_BATCH_SIZE, (items.size() + PARALLELISM * BATCHES_PER_THREAD - 1)
+            / (PARALLELISM * BATCHES_PER_THREAD));
+        List<Future<?>> futures = new ArrayList<>();
+        // 线程池由所有地区共享，指标需要记到提交任务的地区
+        String region = Metrics.getRegion();
+        for (int start = 0; start < items.size(); start += batchSize) {
+            List<T> batch = items.subList(start, Math.min(start + batchSize, items.size()));
+            futures.add(getExecutor().submit(() -> {
+                Metrics.setRegion(region);
+                try {
+                    task.run(batch);
+                } finally {
+                    Metrics.setRegion(null);
+                }
+                return null;
+            }));
+        }
+        IOException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = toIOException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public static int getParallelism() {
+        return PARALLELISM;
+    }
+
+    private static ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (HtmlWriterPool.class) {
+                if (executor == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(PARALLELISM, runnable -> {
+                        Thread thread = new Thread(runnable, "html-writer-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static IOException toIOException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException)cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException)cause).getCause();
+        }
+        return new IOException(cause);
+    }
+}
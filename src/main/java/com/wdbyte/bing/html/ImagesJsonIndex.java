@@ -0,0 +1,229 @@
+package com.wdbyte.bing.html;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.annotation.JSONField;
+
+import com.wdbyte.bing.Images;
+
+/**
+ * images.json 索引
+ * <p>
+ * 以 地区+日期 为键保存图片记录并保持原有顺序。合并时只追加新的记录、更新内容变化的记录，
+ * 读取时按记录逐条流式解析，写出时按记录逐条编码，不再构建整棵 JSON 树；
+ * 写出的字节需要先和已有文件比较、再按需预压缩，所以整个文件的内容会在内存中保留一份。
+ * <p>
+ * 分片模式下按 地区/年份 输出 images/{region}/{year}.json，并在 images/{region}/index.json 中列出所有年份。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ImagesJsonIndex {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * 读取 images.json，文件不存在时返回空索引
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static ImagesJsonIndex read(Path path) throws IOException {
+        ImagesJsonIndex index = new ImagesJsonIndex();
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            return index;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path));
+             JSONReader reader = JSONReader.of(in, StandardCharsets.UTF_8)) {
+            if (!reader.nextIfArrayStart()) {
+                return index;
+            }
+            while (!reader.nextIfArrayEnd()) {
+                Entry entry = reader.read(Entry.class);
+                if (entry != null) {
+                    index.entries.put(entry.key(), entry);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 合并一个地区的图片，新记录追加到末尾，已有记录内容变化时原位更新
+     *
+     * @param region
+     * @param imagesList
+     * @return 索引是否发生变化
+     */
+    public boolean merge(String region, Collection<Images> imagesList) {
+        boolean changed = false;
+        for (Images images : imagesList) {
+            Entry entry = Entry.of(region, images);
+            Entry old = entries.put(entry.key(), entry);
+            if (!entry.equals(old)) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * 逐条写出为 JSON 数组
+     *
+     * @param path
+     * @throws IOException
+     */
+    public void write(Path path) throws IOException {
+        writeEntries(path, entries.values());
+    }
+
+    /**
+     * 按 地区/年份 分片写出一个地区的图片，内容没有变化的分片不会重写
+     *
+     * @param shardRoot
+     * @param region
+     * @param imagesList 该地区的全部图片，按日期倒序
+     * @return 写入的分片数量
+     * @throws IOException
+     */
+    public static int writeShards(Path shardRoot, String region, List<Images> imagesList) throws IOException {
+        Map<String, List<Entry>> yearMap = new TreeMap<>((a, b) -> b.compareTo(a));
+        Map<String, Entry> unique = new LinkedHashMap<>();
+        for (Images images : imagesList) {
+            Entry entry = Entry.of(region, images);
+            unique.put(entry.key(), entry);
+        }
+        for (Entry entry : unique.values()) {
+            yearMap.computeIfAbsent(entry.getDate().substring(0, 4), year -> new ArrayList<>()).add(entry);
+        }
+        Path regionRoot = shardRoot.resolve(region);
+        Files.createDirectories(regionRoot);
+        int written = 0;
+        for (Map.Entry<String, List<Entry>> year : yearMap.entrySet()) {
+            if (writeEntries(regionRoot.resolve(year.getKey() + ".json"), year.getValue())) {
+                written++;
+            }
+        }
+        byte[] shardIndex = JSON.toJSONString(new ArrayList<>(yearMap.keySet())).getBytes(StandardCharsets.UTF_8);
+        HtmlFileUtils.writeIfChanged(regionRoot.resolve("index.json"), shardIndex);
+        return written;
+    }
+
+    /**
+     * 用 JSONWriter 把记录逐条直接编码为 UTF-8 字节，不再为每条记录生成字符串再拼接
+     */
+    static boolean writeEntries(Path path, Collection<Entry> entries) throws IOException {
+        byte[] content;
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            writer.startArray();
+            boolean first = true;
+            for (Entry entry : entries) {
+                if (!first) {
+                    writer.writeComma();
+                }
+                first = false;
+                writer.writeAny(entry);
+            }
+            writer.endArray();
+            content = writer.getBytes();
+        }
+        return HtmlFileUtils.writeIfChanged(path, content);
+    }
+
+    /**
+     * images.json 中的一条记录
+     */
+    public static class Entry {
+        @JSONField(ordinal = 1)
+        private String date;
+        @JSONField(ordinal = 2)
+        private String region;
+        @JSONField(ordinal = 3)
+        private String url;
+        @JSONField(ordinal = 4)
+        private String desc;
+
+        public static Entry of(String region, Images images) {
+            Entry entry = new Entry();
+            entry.date = images.getDate();
+            entry.region = region;
+            entry.url = images.getSimpleUrl();
+            entry.desc = images.getDesc();
+            return entry;
+        }
+
+        String key() {
+            return region + "|" + date;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        public void setDate(String date) {
+            this.date = date;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+
+        public void setDesc(String desc) {
+            this.desc = desc;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (o == null || getClass() != o.getClass()) { return false; }
+            Entry entry = (Entry)o;
+            return Objects.equals(date, entry.date) && Objects.equals(region, entry.region)
+                && Objects.equals(url, entry.url) && Objects.equals(desc, entry.desc);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, region, url, desc);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.wdbyte.bing.html;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.wdbyte.bing.html.HtmlConstant.MonthHistory;
+import com.wdbyte.bing.html.HtmlConstant.Sidebar;
+
+/**
+ * 预先渲染的侧边目录和底部月度历史
+ * <p>
+ * 所有页面的侧边目录和月度历史只有当前月份的高亮不同。这里把普通样式的完整片段和每个月份的高亮样式各渲染一次，
+ * 页面渲染时复制当前月份之前、高亮项、当前月份之后三段即可，不再为每个页面重新渲染所有月份。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class MonthNavigation {
+
+    private final List<String> months;
+    private final Map<String, Integer> monthIndex;
+    private final Nav sidebar;
+    private final Nav monthHistory;
+
+    public MonthNavigation(Collection<String> months) {
+        this.months = new ArrayList<>(months);
+        this.monthIndex = new HashMap<>(months.size() * 4 / 3 + 1);
+        for (int i = 0; i < this.months.size(); i++) {
+            monthIndex.put(this.months.get(i), i);
+        }
+        this.sidebar = new Nav(this.months.size());
+        this.monthHistory = new Nav(this.months.size());
+        StringBuilder item = new StringBuilder(256);
+        for (String month : this.months) {
+            item.setLength(0);
+            Sidebar.appendSidabarMenu(item, month + ".html", month, false);
+            sidebar.addNormal(item);
+            item.setLength(0);
+            Sidebar.appendSidabarMenu(item, month + ".html", month, true);
+            sidebar.addHighlight(item);
+
+            item.setLength(0);
+            MonthHistory.appendMonthHistory(item, month + ".html", month, false);
+            monthHistory.addNormal(item.append(' '));
+            item.setLength(0);
+            MonthHistory.appendMonthHistory(item, month + ".html", month, true);
+            monthHistory.addHighlight(item.append(' '));
+        }
+    }
+
+    /**
+     * 是否与给定的月份列表一致
+     *
+     * @param months
+     * @return
+     */
+    public boolean isSameMonths(Collection<String> months) {
+        return this.months.size() == months.size() && this.months.equals(new ArrayList<>(months));
+    }
+
+    /**
+     * 侧边目录
+     *
+     * @param nowMonth 高亮的月份，首页为 null
+     * @return
+     */
+    public HtmlTemplate.Fragment sidebar(String nowMonth) {
+        return out -> sidebar.appendTo(out, indexOf(nowMonth));
+    }
+
+    /**
+     * 底部月度历史
+     *
+     * @param nowMonth 高亮的月份，首页为 null
+     * @return
+     */
+    public HtmlTemplate.Fragment monthHistory(String nowMonth) {
+        return out -> monthHistory.appendTo(out, indexOf(nowMonth));
+    }
+
+    private int indexOf(String month) {
+        Integer index = month == null ? null : monthIndex.get(month);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 一组导航链接：普通样式拼接后的完整片段、每一项在片段中的结束位置，以及每一项的高亮样式
+     */
+    private static class Nav {
+        private final StringBuilder normal = new StringBuilder();
+        private final int[] ends;
+        private final String[] highlights;
+        private int normalCount;
+        private int highlightCount;
+
+        Nav(int size) {
+            this.ends = new int[size];
+            this.highlights = new String[size];
+        }
+
+        void addNormal(CharSequence item) {
+            normal.append(item);
+            ends[normalCount++] = normal.length();
+        }
+
+        void addHighlight(CharSequence item) {
+            highlights[highlightCount++] = item.toString();
+        }
+
+        void appendTo(StringBuilder out, int highlightIndex) {
+            if (highlightIndex < 0) {
+                out.append(normal);
+                return;
+            }
+            int start = highlightIndex == 0 ? 0 : ends[highlightIndex - 1];
+            out.append(normal, 0, start);
+            out.append(highlights[highlightIndex]);
+            out.append(normal, ends[highlightIndex], normal.length());
+        }
+    }
+}
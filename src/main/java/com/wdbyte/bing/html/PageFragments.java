@@ -0,0 +1,125 @@
+package com.wdbyte.bing.html;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+
+/**
+ * 按页和按月输出的图片卡片片段，前端按需加载
+ * <p>
+ * 每个片段同时输出 .html（图片卡片）和 .json（与 images.json 相同的记录格式），路径固定：
+ * <pre>
+ * {region}/fragments/index.json         每页数量、总数、页数和月份列表
+ * {region}/fragments/page/{n}.html|json 第 n 页，从最早的图片开始编号，新图片只会改变最后一页
+ * {region}/fragments/month/{yyyy-MM}.html|json
+ * </pre>
+ * 片段内按日期倒序排列。图片卡片只渲染一次，和首页、月度页面共用。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class PageFragments {
+
+    public static final int PAGE_SIZE = 30;
+    public static final String FRAGMENTS_DIR = "fragments";
+
+    private final RegionContext context;
+    /**
+     * 图片卡片渲染，由 {@link WebSiteGenerator} 提供并缓存
+     */
+    private final Function<Images, String> cards;
+
+    public PageFragments(RegionContext context, Function<Images, String> cards) {
+        this.context = context;
+        this.cards = cards;
+    }
+
+    /**
+     * 输出所有分页和月度片段，内容没有变化的文件不写入
+     *
+     * @param bingImages 按日期倒序排列的图片
+     * @param monthMap
+     * @return 写入的文件数
+     * @throws IOException
+     */
+    public int write(List<Images> bingImages, Map<String, List<Images>> monthMap) throws IOException {
+        Path root = context.getHtmlRoot().resolve(FRAGMENTS_DIR);
+        List<Fragment> fragments = new ArrayList<>();
+        int pages = (bingImages.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        for (int page = 1; page <= pages; page++) {
+            // 从最早的图片开始分页，bingImages 为倒序，第 n 页对应倒数第 n 段
+            int end = bingImages.size() - (page - 1) * PAGE_SIZE;
+            int start = Math.max(0, end - PAGE_SIZE);
+            fragments.add(new Fragment(root.resolve("page").resolve(String.valueOf(page)),
+                bingImages.subList(start, end)));
+        }
+        for (Map.Entry<String, List<Images>> entry : monthMap.entrySet()) {
+            fragments.add(new Fragment(root.resolve("month").resolve(entry.getKey()), entry.getValue()));
+        }
+        Files.createDirectories(root.resolve("page"));
+        Files.createDirectories(root.resolve("month"));
+
+        AtomicInteger written = new AtomicInteger();
+        HtmlWriterPool.forEachBatch(fragments, batch -> {
+            StringBuilder html = new StringBuilder(PAGE_SIZE * 1024);
+            for (Fragment fragment : batch) {
+                html.setLength(0);
+                for (Images images : fragment.images) {
+                    html.append(cards.apply(images));
+                }
+                if (writeIfChanged(fragment.resolve(".html"), html)) {
+                    written.incrementAndGet();
+                }
+                List<ImagesJsonIndex.Entry> entries = new ArrayList<>(fragment.images.size());
+                for (Images images : fragment.images) {
+                    entries.add(ImagesJsonIndex.Entry.of(context.getRegion(), images));
+                }
+                if (ImagesJsonIndex.writeEntries(fragment.resolve(".json"), entries)) {
+                    written.incrementAndGet();
+                }
+            }
+        });
+
+        JSONObject index = new JSONObject();
+        index.put("pageSize", PAGE_SIZE);
+        index.put("total", bingImages.size());
+        index.put("pages", pages);
+        index.put("months", new ArrayList<>(monthMap.keySet()));
+        if (writeIfChanged(root.resolve("index.json"), index.toJSONString())) {
+            written.incrementAndGet();
+        }
+        return written.get();
+    }
+
+    private static boolean writeIfChanged(Path path, CharSequence content) throws IOException {
+        return HtmlFileUtils.writeIfChanged(path, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class Fragment {
+        /**
+         * 不含扩展名的路径
+         */
+        private final Path path;
+        private final List<Images> images;
+
+        Fragment(Path path, List<Images> images) {
+            this.path = path;
+            this.images = images;
+        }
+
+        Path resolve(String extension) {
+            return path.resolveSibling(path.getFileName() + extension);
+        }
+    }
+}
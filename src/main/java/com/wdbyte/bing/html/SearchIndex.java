@@ -0,0 +1,249 @@
+package com.wdbyte.bing.html;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.store.PhotoIndex;
+
+/**
+ * 静态搜索索引，所有地区共用，代替前端对 images.json 的全量模糊搜索
+ * <pre>
+ * search/index.json              地区列表（顺序只追加）、已有分片
+ * search/shards/{xx}.json        倒排表 词 -> 文档编号（升序），按 {@link SearchTokenizer#shardOf(String)} 分片
+ * search/docs/{region}/{yyyy}.json  文档内容，格式同 images.json，用于展示搜索结果
+ * </pre>
+ * 文档编号为 epochDay &lt;&lt; 6 | 地区序号，前端可以直接还原出日期和地区，按编号倒序即按日期倒序。
+ * 日期查询不经过倒排表，前端直接读取对应年份的文档。
+ * <p>
+ * 增量更新：已写出的文档文件就是上次的状态，只对新增、变化和删除的文档计算词的增减，
+ * 只读取和重写涉及到的分片，新增一天通常只改动十几个分片。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class SearchIndex {
+
+    public static final String INDEX_FILE_NAME = "index.json";
+    private static final String SHARD_DIR = "shards";
+    private static final String DOC_DIR = "docs";
+    private static final int REGION_BITS = 6;
+
+    /**
+     * 分片由所有地区共享，并行生成时需要串行更新
+     */
+    private static final Object LOCK = new Object();
+
+    private final Path root;
+
+    public SearchIndex(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * 更新一个地区的索引
+     *
+     * @param region
+     * @param imagesList 该地区的全部图片，按日期倒序
+     * @param rebuild true 时忽略已有文档，重新生成该地区的所有索引
+     * @return 写入的文件数
+     * @throws IOException
+     */
+    public int update(String region, List<Images> imagesList, boolean rebuild) throws IOException {
+        return update(region, imagesList, rebuild, null);
+    }
+
+    /**
+     * 更新一个地区的索引，按照片去重时只收录主地区的记录，说明合并各地区的说明，用任一语言都能搜到
+     *
+     * @param region
+     * @param imagesList 该地区的全部图片，按日期倒序
+     * @param rebuild true 时忽略已有文档，重新生成该地区的所有索引
+     * @param photos 跨地区图片索引，不去重时为 null
+     * @return 写入的文件数
+     * @throws IOException
+     */
+    public int update(String region, List<Images> imagesList, boolean rebuild, PhotoIndex photos)
+        throws IOException {
+        synchronized (LOCK) {
+            return doUpdate(region, imagesList, rebuild, photos);
+        }
+    }
+
+    private int doUpdate(String region, List<Images> imagesList, boolean rebuild, PhotoIndex photos)
+        throws IOException {
+        Path indexPath = root.resolve(INDEX_FILE_NAME);
+        JSONObject meta = Files.exists(indexPath)
+            ? JSON.parseObject(new String(Files.readAllBytes(indexPath), StandardCharsets.UTF_8)) : new JSONObject();
+        List<String> regions = meta.containsKey("regions")
+            ? meta.getJSONArray("regions").toJavaList(String.class) : new ArrayList<>();
+        Set<String> shards = meta.containsKey("shards")
+            ? new TreeSet<>(meta.getJSONArray("shards").toJavaList(String.class)) : new TreeSet<>();
+        int ordinal = regions.indexOf(region);
+        if (ordinal < 0) {
+            ordinal = regions.size();
+            regions.add(region);
+        }
+        if (ordinal >= 1 << REGION_BITS) {
+            throw new IOException("too many regions in search index:" + regions.size());
+        }
+
+        int regionId = ordinal;
+        int regionMask = (1 << REGION_BITS) - 1;
+        Map<String, Map<String, ImagesJsonIndex.Entry>> years = new TreeMap<>();
+        for (Images images : imagesList) {
+            if (photos != null && !photos.isPrimary(region, images)) {
+                continue;
+            }
+            ImagesJsonIndex.Entry entry = ImagesJsonIndex.Entry.of(region, images);
+            if (photos != null) {
+                StringBuilder desc = new StringBuilder(images.getDesc());
+                for (Images variant : photos.getOtherVariants(region, images).values()) {
+                    desc.append(" / ").append(variant.getDesc());
+                }
+                entry.setDesc(desc.toString());
+            }
+            years.computeIfAbsent(entry.getDate().substring(0, 4), year -> new LinkedHashMap<>())
+                .put(entry.getDate(), entry);
+        }
+
+        // 分片 -> 词 -> 文档编号的增减
+        Map<String, Map<String, Delta>> deltas = new TreeMap<>();
+        int written = 0;
+        int changedDocs = 0;
+        for (Map.Entry<String, Map<String, ImagesJsonIndex.Entry>> year : years.entrySet()) {
+            Path docPath = root.resolve(DOC_DIR).resolve(region).resolve(year.getKey() + ".json");
+            Map<String, ImagesJsonIndex.Entry> previous = rebuild
+                ? Collections.emptyMap() : readDocs(docPath);
+            for (ImagesJsonIndex.Entry entry : year.getValue().values()) {
+                ImagesJsonIndex.Entry old = previous.get(entry.getDate());
+                if (!entry.equals(old)) {
+                    changedDocs++;
+                    diff(deltas, getId(entry.getDate(), ordinal), old == null ? null : old.getDesc(), entry.getDesc());
+                }
+            }
+            for (ImagesJsonIndex.Entry old : previous.values()) {
+                if (!year.getValue().containsKey(old.getDate())) {
+                    changedDocs++;
+                    diff(deltas, getId(old.getDate(), ordinal), old.getDesc(), null);
+                }
+            }
+            if (ImagesJsonIndex.writeEntries(docPath, year.getValue().values())) {
+                written++;
+            }
+        }
+        if (rebuild) {
+            // 重新生成时清除该地区在所有已有分片中的编号
+            for (String shard : shards) {
+                deltas.computeIfAbsent(shard, key -> new TreeMap<>());
+            }
+        }
+
+        for (Map.Entry<String, Map<String, Delta>> shard : deltas.entrySet()) {
+            Path shardPath = root.resolve(SHARD_DIR).resolve(shard.getKey() + ".json");
+            TreeMap<String, TreeSet<Integer>> postings = readShard(shardPath);
+            if (rebuild) {
+                for (TreeSet<Integer> ids : postings.values()) {
+                    ids.removeIf(id -> (id & regionMask) == regionId);
+                }
+            }
+            for (Map.Entry<String, Delta> term : shard.getValue().entrySet()) {
+                TreeSet<Integer> ids = postings.computeIfAbsent(term.getKey(), key -> new TreeSet<>());
+                ids.removeAll(term.getValue().removed);
+                ids.addAll(term.getValue().added);
+            }
+            postings.values().removeIf(Set::isEmpty);
+            if (HtmlFileUtils.writeIfChanged(shardPath, JSON.toJSONString(postings).getBytes(StandardCharsets.UTF_8))) {
+                written++;
+            }
+            shards.add(shard.getKey());
+        }
+
+        meta.put("version", 1);
+        meta.put("regionBits", REGION_BITS);
+        meta.put("regions", regions);
+        meta.put("shards", new ArrayList<>(shards));
+        if (HtmlFileUtils.writeIfChanged(indexPath, meta.toJSONString().getBytes(StandardCharsets.UTF_8))) {
+            written++;
+        }
+        LogUtils.log("search index updated,region:%s,docs:%d,shards:%d,written:%d", region, changedDocs,
+            deltas.size(), written);
+        return written;
+    }
+
+    /**
+     * 记录一篇文档从旧内容变为新内容时词的增减，内容为 null 表示不存在
+     */
+    private static void diff(Map<String, Map<String, Delta>> deltas, int id, String oldDesc, String newDesc) {
+        Set<String> oldTerms = SearchTokenizer.tokenize(oldDesc);
+        Set<String> newTerms = SearchTokenizer.tokenize(newDesc);
+        for (String term : oldTerms) {
+            if (!newTerms.contains(term)) {
+                getDelta(deltas, term).removed.add(id);
+            }
+        }
+        for (String term : newTerms) {
+            if (!oldTerms.contains(term)) {
+                getDelta(deltas, term).added.add(id);
+            }
+        }
+    }
+
+    private static Delta getDelta(Map<String, Map<String, Delta>> deltas, String term) {
+        return deltas.computeIfAbsent(SearchTokenizer.shardOf(term), key -> new TreeMap<>())
+            .computeIfAbsent(term, key -> new Delta());
+    }
+
+    static int getId(String date, int ordinal) {
+        return (int)(LocalDate.parse(date).toEpochDay() << REGION_BITS | ordinal);
+    }
+
+    private static Map<String, ImagesJsonIndex.Entry> readDocs(Path path) throws IOException {
+        Map<String, ImagesJsonIndex.Entry> docs = new HashMap<>();
+        for (ImagesJsonIndex.Entry entry : ImagesJsonIndex.read(path).getEntries()) {
+            docs.put(entry.getDate(), entry);
+        }
+        return docs;
+    }
+
+    private static TreeMap<String, TreeSet<Integer>> readShard(Path path) throws IOException {
+        TreeMap<String, TreeSet<Integer>> postings = new TreeMap<>();
+        if (!Files.exists(path)) {
+            return postings;
+        }
+        JSONObject json = JSON.parseObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        for (Map.Entry<String, Object> entry : json.entrySet()) {
+            TreeSet<Integer> ids = new TreeSet<>();
+            for (Object id : (JSONArray)entry.getValue()) {
+                ids.add(((Number)id).intValue());
+            }
+            postings.put(entry.getKey(), ids);
+        }
+        return postings;
+    }
+
+    /**
+     * 一个词在本次更新中增加和删除的文档编号
+     */
+    private static class Delta {
+        private final Set<Integer> added = new TreeSet<>();
+        private final Set<Integer> removed = new TreeSet<>();
+    }
+}
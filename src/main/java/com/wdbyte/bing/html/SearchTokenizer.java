@@ -0,0 +1,112 @@
+package com.wdbyte.bing.html;
+
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 搜索分词，docs/js/search.js 中的 tokenize 和 shardOf 与这里保持一致
+ * <p>
+ * 中日韩文字按相邻两个字切分（整段只有一个字时保留单字），其他文字按连续的字母和数字切分，
+ * 去掉变音符号后转小写，单个字符的词忽略。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class SearchTokenizer {
+
+    /**
+     * 分片数量，分片名为两位十六进制
+     */
+    public static final int SHARD_COUNT = 256;
+
+    /**
+     * 切分文本，按出现顺序去重
+     *
+     * @param text
+     * @return
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < text.length() && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                addBigrams(tokens, text.substring(start, i));
+            } else if (isWord(cp)) {
+                int start = i;
+                while (i < text.length() && isWordPart(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                String word = Normalizer.normalize(text.substring(start, i), Form.NFD)
+                    .replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+                if (word.codePointCount(0, word.length()) >= 2) {
+                    tokens.add(word);
+                }
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 词所在的分片：中日韩词按第一个字，其他词按前两个字符，计算 FNV-1a 哈希后取低 8 位。
+     * 同一前缀的词在同一个分片中，查询时可以按前缀匹配
+     *
+     * @param term
+     * @return
+     */
+    public static String shardOf(String term) {
+        int prefixLength = isCjk(term.codePointAt(0)) ? 1 : 2;
+        int end = term.offsetByCodePoints(0, Math.min(prefixLength, term.codePointCount(0, term.length())));
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < end; i++) {
+            hash ^= term.charAt(i);
+            hash *= 0x01000193;
+        }
+        return String.format("%02x", hash & (SHARD_COUNT - 1));
+    }
+
+    private static void addBigrams(Set<String> tokens, String run) {
+        int count = run.codePointCount(0, run.length());
+        if (count == 1) {
+            tokens.add(run);
+            return;
+        }
+        int start = 0;
+        for (int n = 0; n < count - 1; n++) {
+            int next = run.offsetByCodePoints(start, 1);
+            tokens.add(run.substring(start, run.offsetByCodePoints(next, 1)));
+            start = next;
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static boolean isWord(int cp) {
+        return Character.isLetter(cp) || Character.isDigit(cp);
+    }
+
+    private static boolean isWordPart(int cp) {
+        if (isCjk(cp)) {
+            return false;
+        }
+        int type = Character.getType(cp);
+        return isWord(cp) || type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+            || type == Character.ENCLOSING_MARK;
+    }
+}
@@ -0,0 +1,238 @@
+package com.wdbyte.bing.html;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.alibaba.fastjson.JSON;
+
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.download.ThumbnailIndex;
+import com.wdbyte.bing.store.PhotoIndex;
+
+/**
+ * 网站增量生成清单
+ * <p>
+ * 记录上一次生成时每张图片、每个月份以及模板的内容摘要，下次生成时只重新渲染摘要发生变化的页面。
+ * 清单保存在本地缓存目录 {@link RegionContext#getSiteManifestPath()}，不随网站发布；
+ * GitHub Actions 每次都是全新的检出，通过 workflow 中的 actions/cache 在两次运行之间保留，缓存缺失时全量生成一次。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class SiteManifest {
+
+    /**
+     * 生成代码的版本，计入模板摘要；修改了模板之外的页面渲染逻辑（如 {@link HtmlConstant}）时需要加一，
+     * 否则内容没有变化的页面不会重新渲染
+     */
+    static final int GENERATOR_VERSION = 1;
+
+    /**
+     * 首页模板摘要
+     */
+    private String indexTemplateHash;
+    /**
+     * 详情页模板摘要
+     */
+    private String detailTemplateHash;
+    /**
+     * 月份列表摘要，月份增减时侧边栏和底部归档都会变化
+     */
+    private String monthListHash;
+    /**
+     * 详情页路径 -> 图片摘要
+     */
+    private Map<String, String> images = new TreeMap<>();
+    /**
+     * 月份 -> 月度图片列表摘要
+     */
+    private Map<String, String> months = new TreeMap<>();
+
+    /**
+     * 根据当前图片数据和模板构建清单
+     *
+     * @param bingImages
+     * @param monthMap
+     * @param indexTemplate
+     * @param detailTemplate
+     * @param thumbnails 本地缩略图，缩略图变化时只影响首页和月度页面
+     * @return
+     */
+    public static SiteManifest build(List<Images> bingImages, Map<String, List<Images>> monthMap,
+        String indexTemplate, String detailTemplate, ThumbnailIndex thumbnails) {
+        return build(bingImages, monthMap, indexTemplate, detailTemplate, thumbnails, null, null);
+    }
+
+    /**
+     * 根据当前图片数据和模板构建清单，按照片去重时其他地区的说明和主地区的变化也计入摘要
+     *
+     * @param bingImages
+     * @param monthMap
+     * @param indexTemplate
+     * @param detailTemplate
+     * @param thumbnails 本地缩略图，缩略图变化时只影响首页和月度页面
+     * @param photos 跨地区图片索引，不去重时为 null
+     * @param region 当前地区
+     * @return
+     */
+    public static SiteManifest build(List<Images> bingImages, Map<String, List<Images>> monthMap,
+        String indexTemplate, String detailTemplate, ThumbnailIndex thumbnails, PhotoIndex photos, String region) {
+        SiteManifest manifest = new SiteManifest();
+        manifest.indexTemplateHash = digest(GENERATOR_VERSION + "|" + indexTemplate);
+        manifest.detailTemplateHash = digest(GENERATOR_VERSION + "|" + detailTemplate);
+        manifest.monthListHash = digest(String.join(",", monthMap.keySet()));
+        for (Images images : bingImages) {
+            // 同一天有多条记录时，和生成顺序保持一致，后写入的覆盖先写入的
+            manifest.images.put(images.getDetailUrlPath(), digest(images, photos, region));
+        }
+        for (Map.Entry<String, List<Images>> entry : monthMap.entrySet()) {
+            StringBuilder monthContent = new StringBuilder();
+            for (Images images : entry.getValue()) {
+                monthContent.append(digest(images, photos, region)).append(',');
+                String thumbnail = thumbnails == null ? null : thumbnails.get(images.getUrl());
+                if (thumbnail != null) {
+                    monthContent.append(thumbnail).append(',');
+                }
+            }
+            manifest.months.put(entry.getKey(), digest(monthContent.toString()));
+        }
+        return manifest;
+    }
+
+    /**
+     * 读取上一次生成的清单，不存在或无法解析时返回空清单
+     *
+     * @param path
+     * @return
+     */
+    public static SiteManifest read(Path path) {
+        if (!Files.exists(path)) {
+            return new SiteManifest();
+        }
+        try {
+            String json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            SiteManifest manifest = JSON.parseObject(json, SiteManifest.class);
+            return manifest == null ? new SiteManifest() : manifest;
+        } catch (Exception e) {
+            LogUtils.log("read site manifest failed, full rebuild,path:%s", path.toString());
+            return new SiteManifest();
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        FileWriteUtils.writeIfChanged(path, JSON.toJSONString(this).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 侧边栏和底部归档是否需要在所有月度页面中更新
+     *
+     * @param previous
+     * @return
+     */
+    public boolean isNavigationChanged(SiteManifest previous) {
+        return !Objects.equals(monthListHash, previous.monthListHash)
+            || !Objects.equals(indexTemplateHash, previous.indexTemplateHash);
+    }
+
+    public boolean isMonthChanged(SiteManifest previous, String month) {
+        return !Objects.equals(months.get(month), previous.months.get(month));
+    }
+
+    public boolean isImageChanged(SiteManifest previous, Images images) {
+        if (!Objects.equals(detailTemplateHash, previous.detailTemplateHash)) {
+            return true;
+        }
+        String detailUrlPath = images.getDetailUrlPath();
+        return !Objects.equals(this.images.get(detailUrlPath), previous.images.get(detailUrlPath));
+    }
+
+    public boolean isAnyImageChanged(SiteManifest previous) {
+        return !Objects.equals(images, previous.images);
+    }
+
+    private static String digest(Images images) {
+        return digest(images.getDate() + "|" + images.getDesc() + "|" + images.getUrl());
+    }
+
+    private static String digest(Images images, PhotoIndex photos, String region) {
+        if (photos == null) {
+            return digest(images);
+        }
+        StringBuilder content = new StringBuilder(256);
+        content.append(images.getDate()).append('|').append(images.getDesc()).append('|').append(images.getUrl());
+        Images primary = photos.getPrimary(region, images);
+        if (primary != images) {
+            content.append("|primary:").append(photos.getPrimaryRegion(region, images)).append('|')
+                .append(primary.getDetailUrlPath());
+        }
+        for (Map.Entry<String, Images> variant : photos.getOtherVariants(region, images).entrySet()) {
+            content.append('|').append(variant.getKey()).append(':').append(variant.getValue().getDesc());
+        }
+        return digest(content.toString());
+    }
+
+    private static String digest(String content) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            byte[] bytes = messageDigest.digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String getIndexTemplateHash() {
+        return indexTemplateHash;
+    }
+
+    public void setIndexTemplateHash(String indexTemplateHash) {
+        this.indexTemplateHash = indexTemplateHash;
+    }
+
+    public String getDetailTemplateHash() {
+        return detailTemplateHash;
+    }
+
+    public void setDetailTemplateHash(String detailTemplateHash) {
+        this.detailTemplateHash = detailTemplateHash;
+    }
+
+    public String getMonthListHash() {
+        return monthListHash;
+    }
+
+    public void setMonthListHash(String monthListHash) {
+        this.monthListHash = monthListHash;
+    }
+
+    public Map<String, String> getImages() {
+        return images;
+    }
+
+    public void setImages(Map<String, String> images) {
+        this.images = images == null ? new TreeMap<>() : new TreeMap<>(images);
+    }
+
+    public Map<String, String> getMonths() {
+        return months;
+    }
+
+    public void setMonths(Map<String, String> months) {
+        this.months = months == null ? new TreeMap<>() : new TreeMap<>(months);
+    }
+}
@@ -1,19 +1,34 @@
 package com.wdbyte.bing.html;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
 import com.alibaba.fastjson2.JSONWriter.Feature;
 
-import com.wdbyte.bing.BingFileUtils;
 import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.RegionContext;
 import com.wdbyte.bing.Wallpaper;
+import com.wdbyte.bing.download.ThumbnailGenerator;
+import com.wdbyte.bing.download.ThumbnailIndex;
+import com.wdbyte.bing.like.LikeCounter;
+import com.wdbyte.bing.like.LikeLog;
+import com.wdbyte.bing.like.LikeService;
+import com.wdbyte.bing.metrics.Metrics;
+import com.wdbyte.bing.store.ArchiveSession;
+import com.wdbyte.bing.store.PhotoIndex;
 import com.wdbyte.bing.html.HtmlConstant.Head;
 import com.wdbyte.bing.html.HtmlConstant.ImgCard;
 import com.wdbyte.bing.html.HtmlConstant.ImgDetail;
@@ -26,159 +41,450 @@ import com.wdbyte.bing.html.HtmlConstant.Sidebar;
  */
 public class WebSiteGenerator {
 
-    public static void main(String[] args) throws IOException {
-        WebSiteGenerator generator = new WebSiteGenerator();
+    /**
+     * images.json 由所有地区共享，并行生成时读取、合并、写入需要串行执行
+     */
+    private static final Object IMAGES_JSON_LOCK = new Object();
+    /**
+     * 为 true 时 images.json 按 地区/年份 分片输出
+     */
+    public static final String IMAGES_JSON_SHARD_PROPERTY = "bing.images.json.shard";
+    /**
+     * 为 true 时图片卡片使用 {@link ThumbnailGenerator} 生成的本地缩略图，没有缩略图的图片仍然使用必应地址
+     */
+    public static final String LOCAL_ASSETS_PROPERTY = "bing.html.localAssets";
+    /**
+     * 为 true 时输出按页、按月的图片卡片片段，见 {@link PageFragments}
+     */
+    public static final String FRAGMENTS_PROPERTY = "bing.html.fragments";
+    /**
+     * 为 true 时根据 {@link LikeService} 的日志输出点赞排行 likes/top.json
+     */
+    public static final String LIKES_PROPERTY = "bing.html.likes";
+    /**
+     * 为 true 时输出静态搜索索引，见 {@link SearchIndex}
+     */
+    public static final String SEARCH_PROPERTY = "bing.html.search";
+    /**
+     * 为 true 时忽略上次生成清单，重新渲染所有页面
+     */
+    public static final String FULL_REBUILD_PROPERTY = "bing.html.fullRebuild";
+    private static final int LIKES_TOP = 30;
 
-        List<Images> bingImages = BingFileUtils.readBing();
-        bingImages = bingImages.stream().filter(img -> img.getUrl() != null).collect(Collectors.toList());
+    private final RegionContext context;
+    /**
+     * 当前月份列表对应的导航片段，所有页面共用
+     */
+    private MonthNavigation navigation;
+    /**
+     * 本地缩略图，未开启时为 null
+     */
+    private ThumbnailIndex thumbnails;
+    private boolean thumbnailsLoaded;
+    /**
+     * 跨地区图片索引，未开启 {@link PhotoIndex#DEDUPE_PROPERTY} 时为 null
+     */
+    private PhotoIndex photos;
+    private boolean photosLoaded;
+    /**
+     * 已渲染的图片卡片，首页、月度页面和片段共用
+     */
+    private final Map<Images, String> cards = new ConcurrentHashMap<>();
 
-        Map<String, List<Images>> monthMap = BingFileUtils.convertImgListToMonthMap(bingImages);
+    public WebSiteGenerator(RegionContext context) {
+        this.context = context;
+    }
+
+    /**
+     * 使用已构建的跨地区索引，并行生成多个地区时共用同一个索引
+     *
+     * @param context
+     * @param photos 未开启按照片去重时为 null
+     */
+    public WebSiteGenerator(RegionContext context, PhotoIndex photos) {
+        this.context = context;
+        this.photos = photos;
+        this.photosLoaded = true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        RegionContext context = RegionContext.of(args.length > 0 ? args[0] : RegionContext.DEFAULT_REGION);
+        WebSiteGenerator generator = new WebSiteGenerator(context);
+
+        ArchiveSession session = ArchiveSession.load(context);
+        List<Images> bingImages = session.getWebImages();
+        Map<String, List<Images>> monthMap = session.getMonthMap();
+        generator.loadPhotos(session);
         generator.htmlGeneratorIndex(bingImages, monthMap);
         generator.htmlGeneratorMonth(monthMap);
         generator.htmlGeneratorImgDetail(bingImages);
         generator.htmlGeneratorImgJson(bingImages);
     }
 
+    /**
+     * 增量生成网站，只重新渲染内容发生变化的页面
+     *
+     * @throws IOException
+     */
     public void htmlGenerator() throws IOException {
-        List<Images> bingImages = BingFileUtils.readBing();
-        bingImages = bingImages.stream().filter(img -> img.getUrl() != null).collect(Collectors.toList());
-        Map<String, List<Images>> monthMap = BingFileUtils.convertImgListToMonthMap(bingImages);
-        htmlGeneratorIndex(bingImages, monthMap);
-        htmlGeneratorToday(bingImages);
-        htmlGeneratorMonth(monthMap);
-        htmlGeneratorImgDetail(bingImages);
-        htmlGeneratorImgJson(bingImages);
+        htmlGenerator(false);
+    }
+
+    /**
+     * 生成网站
+     *
+     * @param fullRebuild true 时忽略上次生成清单，重新渲染所有页面
+     * @throws IOException
+     */
+    public void htmlGenerator(boolean fullRebuild) throws IOException {
+        htmlGenerator(ArchiveSession.load(context), fullRebuild);
+    }
+
+    /**
+     * 使用已经读取的归档生成网站
+     *
+     * @param session 当前地区的归档
+     * @param fullRebuild true 时忽略上次生成清单，重新渲染所有页面
+     * @throws IOException
+     */
+    public void htmlGenerator(ArchiveSession session, boolean fullRebuild) throws IOException {
+        List<Images> bingImages = session.getWebImages();
+        Map<String, List<Images>> monthMap = session.getMonthMap();
+        loadPhotos(session);
+
+        SiteManifest previous = fullRebuild ? new SiteManifest() : SiteManifest.read(context.getSiteManifestPath());
+        SiteManifest current = SiteManifest.build(bingImages, monthMap, HtmlFileUtils.getIndexTemplate().getSource(),
+            HtmlFileUtils.getDetailTemplate().getSource(), getThumbnails(), photos, context.getRegion());
+
+        Metrics.time("html.index", () -> {
+            htmlGeneratorIndex(bingImages, monthMap);
+            htmlGeneratorToday(bingImages);
+        });
+
+        // 月份增减会改变所有页面的侧边栏和底部归档，此时所有月度页面都需要重新生成
+        boolean navigationChanged = current.isNavigationChanged(previous);
+        List<String> changedMonths = monthMap.keySet().stream()
+            .filter(month -> navigationChanged || current.isMonthChanged(previous, month))
+            .collect(Collectors.toList());
+        Metrics.time("html.month", () -> htmlGeneratorMonth(monthMap, changedMonths));
+
+        List<Images> changedImages = bingImages.stream()
+            .filter(img -> current.isImageChanged(previous, img))
+            .collect(Collectors.toList());
+        Metrics.time("html.detail", () -> htmlGeneratorImgDetail(changedImages));
+
+        if (current.isAnyImageChanged(previous)) {
+            Metrics.time("html.json", () -> htmlGeneratorImgJson(bingImages));
+        }
+        if (Boolean.getBoolean(FRAGMENTS_PROPERTY)) {
+            int written = Metrics.time("html.fragments",
+                () -> new PageFragments(context, this::getCard).write(bingImages, monthMap));
+            LogUtils.log("html fragments written,region:%s,written:%d", context, written);
+        }
+        if (Boolean.getBoolean(SEARCH_PROPERTY)) {
+            Metrics.time("html.search", () -> new SearchIndex(HtmlFileUtils.getSearchRoot())
+                .update(context.getRegion(), bingImages, fullRebuild, photos));
+        }
+        if (Boolean.getBoolean(LIKES_PROPERTY)) {
+            htmlGeneratorLikes(bingImages);
+        }
+        current.write(context.getSiteManifestPath());
+        LogUtils.log("html generate finished,region:%s,month pages:%d/%d,detail pages:%d/%d", context, changedMonths.size(),
+            monthMap.size(), changedImages.size(), bingImages.size());
     }
 
     private void htmlGeneratorToday(List<Images> bingImages) throws IOException {
         String url = bingImages.get(0).getUrl();
-        String fileName = String.format("%s_%s.jpg", Wallpaper.CURRENT_REGION, bingImages.get(0).getDate());
+        String fileName = String.format("%s_%s.jpg", context.getRegion(), bingImages.get(0).getDate());
         JSONObject jsonObject = new JSONObject();
         jsonObject.put("file_name", fileName);
         jsonObject.put("url", url);
         jsonObject.put("date", bingImages.get(0).getDate());
-        jsonObject.put("region", Wallpaper.CURRENT_REGION);
+        jsonObject.put("region", context.getRegion());
         jsonObject.put("desc", bingImages.get(0).getDesc());
-        HtmlFileUtils.writeToday(jsonObject.toString(Feature.PrettyFormat));
+        HtmlFileUtils.writeToday(context, jsonObject.toString(Feature.PrettyFormat));
     }
 
     public void htmlGeneratorIndex(List<Images> bingImages, Map<String, List<Images>> monthMap) throws IOException {
-        String templateFile = HtmlFileUtils.readIndexTemplateFile();
-        // 替换头部图片和描述
-        String indexHtml = replaceHead(templateFile, bingImages.get(0), null);
-        // 替换侧边目录
-        indexHtml = replaceSidebar(indexHtml, monthMap, null);
-        // 替换图片列表
-        indexHtml = replaceImgList(indexHtml, bingImages.size() > 30 ? bingImages.subList(0, 30) : bingImages);
-        // 替换底部月度历史
-        indexHtml = replaceMonthHistory(indexHtml, monthMap, null);
+        HtmlTemplate template = HtmlFileUtils.getIndexTemplate();
+        getThumbnails();
+        StringBuilder indexHtml = new StringBuilder(template.getLength() + 64 * 1024);
+        renderPage(indexHtml, template, bingImages.get(0), null, getNavigation(monthMap),
+            bingImages.size() > 30 ? bingImages.subList(0, 30) : bingImages);
         // 写到文件
-        HtmlFileUtils.writeIndexHtml(indexHtml);
+        HtmlFileUtils.writeIndexHtml(context, indexHtml.toString());
     }
 
     public void htmlGeneratorImgDetail(List<Images> bingImages) throws IOException {
-        String templateFile = HtmlFileUtils.readDetailTemplateFile();
-        for (Images bingImage : bingImages) {
-            String detailHtml = templateFile.replace(ImgDetail.HEAD_TITLE, bingImage.getDesc());
-            detailHtml = detailHtml.replace(ImgDetail.IMG_URL, bingImage.getSimpleUrl());
-            detailHtml = detailHtml.replace(ImgDetail.IMG_DATE, bingImage.getDate());
-            detailHtml = detailHtml.replace(ImgDetail.IMG_DESC, bingImage.getDesc());
-            // 写到文件
-            HtmlFileUtils.writeDetailHtml(detailHtml, bingImage.getDetailUrlPath());
+        HtmlTemplate template = HtmlFileUtils.getDetailTemplate();
+        PhotoIndex photoIndex = loadPhotos(null);
+        if (photoIndex != null) {
+            // 照片的详情页只在主地区生成，其他地区原有的详情页改为跳转到主地区
+            Map<Boolean, List<Images>> primaryMap = bingImages.stream()
+                .collect(Collectors.partitioningBy(img -> photoIndex.isPrimary(context.getRegion(), img)));
+            bingImages = primaryMap.get(true);
+            htmlGeneratorRedirect(primaryMap.get(false), bingImages);
         }
+        HtmlFileUtils.createDetailDirectories(context,
+            bingImages.stream().map(Images::getDetailUrlPath).collect(Collectors.toList()));
+        // 同一天有多条记录时，同一批次内按顺序写入，保证最后一条生效
+        List<List<Images>> detailGroups = new ArrayList<>(
+            bingImages.stream().collect(Collectors.groupingBy(Images::getDetailUrlPath, LinkedHashMap::new,
+                Collectors.toList())).values());
+        HtmlWriterPool.forEachBatch(detailGroups, batch -> {
+            StringBuilder detailHtml = new StringBuilder(template.getLength() + 1024);
+            Map<String, String> values = new HashMap<>(8);
+            for (List<Images> group : batch) {
+                for (Images bingImage : group) {
+                    values.put(ImgDetail.HEAD_TITLE, bingImage.getDesc());
+                    values.put(ImgDetail.IMG_URL, bingImage.getSimpleUrl());
+                    values.put(ImgDetail.IMG_DATE, bingImage.getDate());
+                    values.put(ImgDetail.IMG_DESC, getDetailDesc(photoIndex, bingImage));
+                    detailHtml.setLength(0);
+                    template.render(detailHtml, values);
+                    // 写到文件
+                    HtmlFileUtils.writeDetailHtml(context, detailHtml.toString(), bingImage.getDetailUrlPath());
+                }
+            }
+        });
     }
 
+    /**
+     * 主地区不是当前地区的图片，详情页改为跳转到主地区的详情页，已经发布的链接仍然可用。
+     * 同一天还有以当前地区为主地区的图片时以它的详情页为准，不写跳转
+     */
+    private void htmlGeneratorRedirect(List<Images> bingImages, List<Images> primaryImages) throws IOException {
+        Set<String> primaryPaths = primaryImages.stream().map(Images::getDetailUrlPath).collect(Collectors.toSet());
+        List<Images> redirects = bingImages.stream()
+            .filter(img -> !primaryPaths.contains(img.getDetailUrlPath()))
+            .collect(Collectors.toList());
+        HtmlFileUtils.createDetailDirectories(context,
+            redirects.stream().map(Images::getDetailUrlPath).collect(Collectors.toList()));
+        for (Images bingImage : redirects) {
+            HtmlFileUtils.writeDetailHtml(context, HtmlConstant.Redirect.getRedirect(getDetailUrl(bingImage)),
+                bingImage.getDetailUrlPath());
+        }
+    }
+
+    /**
+     * 详情页说明，按照片去重时依次附上其他地区的说明
+     */
+    private String getDetailDesc(PhotoIndex photoIndex, Images bingImage) {
+        if (photoIndex == null) {
+            return bingImage.getDesc();
+        }
+        StringBuilder desc = new StringBuilder(bingImage.getDesc());
+        for (Images variant : photoIndex.getOtherVariants(context.getRegion(), bingImage).values()) {
+            desc.append("<br>").append(variant.getDesc());
+        }
+        return desc.toString();
+    }
+
+    /**
+     * 生成 images.json，默认合并到所有地区共享的文件中；开启分片时只写当前地区的年度分片
+     *
+     * @param imagesList
+     * @throws IOException
+     */
     public void htmlGeneratorImgJson(List<Images> imagesList) throws IOException {
-        String imagesJson = HtmlFileUtils.readImagesJson();
-        JSONArray imagesJsonArray = JSON.parseArray(imagesJson);
-        if (imagesJsonArray == null){
-            imagesJsonArray = new JSONArray();
+        if (Boolean.getBoolean(IMAGES_JSON_SHARD_PROPERTY)) {
+            int written = ImagesJsonIndex.writeShards(HtmlFileUtils.getImagesShardRoot(), context.getRegion(), imagesList);
+            LogUtils.log("images json shards written,region:%s,written:%d", context, written);
+            return;
+        }
+        synchronized (IMAGES_JSON_LOCK) {
+            ImagesJsonIndex index = ImagesJsonIndex.read(HtmlFileUtils.getImagesJsonPath());
+            if (index.merge(context.getRegion(), imagesList)) {
+                index.write(HtmlFileUtils.getImagesJsonPath());
+                LogUtils.log("images json written,region:%s,size:%d", context, index.size());
+            }
+        }
+    }
+
+    /**
+     * 输出当前地区点赞最多的图片，只读取点赞日志，不影响正在运行的点赞服务
+     *
+     * @param bingImages
+     * @throws IOException
+     */
+    public void htmlGeneratorLikes(List<Images> bingImages) throws IOException {
+        Map<String, Images> imagesMap = new HashMap<>(bingImages.size() * 2);
+        for (Images images : bingImages) {
+            imagesMap.putIfAbsent(images.getDate(), images);
         }
-        for (Images images : imagesList) {
-            Map<String, String> imgMap = new HashMap<>(8);
-            imgMap.put("date", images.getDate());
-            imgMap.put("desc", images.getDesc());
-            imgMap.put("url", images.getSimpleUrl());
-            imgMap.put("region", Wallpaper.CURRENT_REGION);
-            imagesJsonArray.add(imgMap);
+        List<JSONObject> top = new ArrayList<>(LIKES_TOP);
+        for (LikeCounter.Entry entry : LikeCounter.top(LikeLog.read(LikeService.getLogPath()), context.getRegion(),
+            LIKES_TOP)) {
+            Images images = imagesMap.get(entry.getDate());
+            if (images == null) {
+                continue;
+            }
+            JSONObject item = new JSONObject();
+            item.put("date", entry.getDate());
+            item.put("region", entry.getRegion());
+            item.put("url", images.getSimpleUrl());
+            item.put("desc", images.getDesc());
+            item.put("count", entry.getCount());
+            top.add(item);
         }
-        List<Object> json = imagesJsonArray.stream().distinct().collect(Collectors.toList());
-        HtmlFileUtils.writeImagesJson(JSON.toJSONString(json));
+        HtmlFileUtils.writeIfChanged(context.getHtmlRoot().resolve("likes").resolve("top.json"),
+            JSON.toJSONString(top).getBytes(StandardCharsets.UTF_8));
     }
 
     public void htmlGeneratorMonth(Map<String, List<Images>> monthMap) throws IOException {
-        for (String month : monthMap.keySet()) {
-            List<Images> bingImages = monthMap.get(month);
-            String templateFile = HtmlFileUtils.readIndexTemplateFile();
-            // 替换头部图片和描述
-            String html = replaceHead(templateFile, bingImages.get(0), month);
-            // 替换侧边目录
-            html = replaceSidebar(html, monthMap, month);
-            // 替换图片列表
-            html = replaceImgList(html, bingImages);
-            // 替换底部月度历史
-            html = replaceMonthHistory(html, monthMap, month);
-            // 写到文件
-            HtmlFileUtils.writeMonthHtml(month, html);
-        }
-    }
-
-    public String replaceSidebar(String html, Map<String, List<Images>> monthMap, String nowMonth) {
-        StringBuilder sidebar = new StringBuilder();
-        for (String month : monthMap.keySet()) {
-            String sidabarMenu = Sidebar.getSidabarMenuList(month + ".html", month);
-            if (month != null && month.equals(nowMonth)) {
-                sidabarMenu = sidabarMenu.replace(Sidebar.VAR_SIDABAR_COLOR, Sidebar.VAR_SIDABAR_NOW_COLOR);
+        htmlGeneratorMonth(monthMap, monthMap.keySet());
+    }
+
+    /**
+     * 生成指定月份的页面，侧边栏和底部归档仍然包含全部月份
+     *
+     * @param monthMap
+     * @param months
+     * @throws IOException
+     */
+    public void htmlGeneratorMonth(Map<String, List<Images>> monthMap, Collection<String> months) throws IOException {
+        HtmlTemplate template = HtmlFileUtils.getIndexTemplate();
+        MonthNavigation monthNavigation = getNavigation(monthMap);
+        getThumbnails();
+        HtmlWriterPool.forEachBatch(new ArrayList<>(months), batch -> {
+            StringBuilder html = new StringBuilder(template.getLength() + 64 * 1024);
+            for (String month : batch) {
+                List<Images> bingImages = monthMap.get(month);
+                html.setLength(0);
+                renderPage(html, template, bingImages.get(0), month, monthNavigation, bingImages);
+                // 写到文件
+                HtmlFileUtils.writeMonthHtml(context, month, html.toString());
+            }
+        });
+    }
+
+    /**
+     * 渲染首页或月度页面
+     *
+     * @param out
+     * @param template 首页模板
+     * @param headImage 头部大图
+     * @param month 当前月份，首页为 null
+     * @param monthNavigation 侧边目录和底部月度历史
+     * @param bingImages 图片列表
+     */
+    public void renderPage(StringBuilder out, HtmlTemplate template, Images headImage, String month,
+        MonthNavigation monthNavigation, List<Images> bingImages) {
+        Map<String, Object> values = new HashMap<>(8);
+        // 头部图片和描述
+        putHead(values, headImage, month);
+        // 侧边目录
+        values.put(Sidebar.VAR_SIDABAR, monthNavigation.sidebar(month));
+        // 图片列表
+        values.put(ImgCard.VAR_IMG_CARD_LIST, imgList(bingImages));
+        // 底部月度历史
+        values.put(MonthHistory.VAR_MONTH_HISTORY, monthNavigation.monthHistory(month));
+        template.render(out, values);
+    }
+
+    /**
+     * 获取月份列表对应的导航片段，月份列表不变时复用
+     *
+     * @param monthMap
+     * @return
+     */
+    public MonthNavigation getNavigation(Map<String, List<Images>> monthMap) {
+        if (navigation == null || !navigation.isSameMonths(monthMap.keySet())) {
+            navigation = new MonthNavigation(monthMap.keySet());
+        }
+        return navigation;
+    }
+
+    /**
+     * 卡片链接的详情页，照片的主地区是其他地区时指向主地区的详情页
+     */
+    private String getDetailUrl(Images bingImage) {
+        if (photos == null) {
+            return bingImage.getDetailUrlPath();
+        }
+        String primaryRegion = photos.getPrimaryRegion(context.getRegion(), bingImage);
+        if (primaryRegion.equals(context.getRegion())) {
+            return bingImage.getDetailUrlPath();
+        }
+        return RegionContext.of(primaryRegion).getSitePath()
+            + photos.getPrimary(context.getRegion(), bingImage).getDetailUrlPath();
+    }
+
+    /**
+     * 没有通过构造方法传入跨地区索引时，开启按照片去重后读取网站其他地区的归档构建索引，当前地区直接使用已读取的归档。
+     * 只适合单独生成一个地区，并行生成时由调用方在所有地区写入归档后构建索引并传入
+     *
+     * @param session 当前地区的归档，为 null 时重新读取
+     * @return 未开启时返回 null
+     * @throws IOException
+     */
+    private PhotoIndex loadPhotos(ArchiveSession session) throws IOException {
+        if (!photosLoaded) {
+            if (Boolean.getBoolean(PhotoIndex.DEDUPE_PROPERTY)) {
+                photos = Wallpaper.loadPhotos(
+                    Collections.singletonList(session != null ? session : ArchiveSession.load(context)));
             }
-            sidebar.append(sidabarMenu);
+            photosLoaded = true;
         }
-        return html.replace(Sidebar.VAR_SIDABAR, sidebar.toString());
+        return photos;
     }
 
     /**
-     * 更新头部大图和描述
+     * 开启本地资源时读取缩略图索引，只读取一次
      *
-     * @param html
+     * @return 未开启时返回 null
+     * @throws IOException
+     */
+    public ThumbnailIndex getThumbnails() throws IOException {
+        if (!thumbnailsLoaded) {
+            if (Boolean.getBoolean(LOCAL_ASSETS_PROPERTY)) {
+                thumbnails = ThumbnailIndex.read(HtmlFileUtils.getThumbnailRoot());
+            }
+            thumbnailsLoaded = true;
+        }
+        return thumbnails;
+    }
+
+    /**
+     * 头部大图和描述
+     *
+     * @param values
      * @param images
      * @param month
-     * @return
      */
-    public String replaceHead(String html, Images images, String month) {
-        html = html.replace(Head.HEAD_IMG_URL, images.getSimpleUrl());
-        html = html.replace(Head.HEAD_IMG_DESC, images.getDesc());
+    public void putHead(Map<String, Object> values, Images images, String month) {
+        values.put(Head.HEAD_IMG_URL, images.getSimpleUrl());
+        values.put(Head.HEAD_IMG_DESC, images.getDesc());
         if (month != null) {
-            html = html.replace(Head.HEAD_TITLE, "Bing Wallpaper(" + month + ")");
+            values.put(Head.HEAD_TITLE, "Bing Wallpaper(" + month + ")");
         } else {
-            html = html.replace(Head.HEAD_TITLE, "Bing Wallpaper");
+            values.put(Head.HEAD_TITLE, "Bing Wallpaper");
         }
-        return html;
     }
 
-    public String replaceImgList(String html, List<Images> bingImages) {
-        StringBuilder imgList = new StringBuilder();
-        for (Images bingImage : bingImages) {
-            imgList.append(ImgCard.getImgCard(bingImage));
-        }
-        return html.replace(ImgCard.VAR_IMG_CARD_LIST, imgList.toString());
+    public HtmlTemplate.Fragment imgList(List<Images> bingImages) {
+        return out -> {
+            for (Images bingImage : bingImages) {
+                out.append(getCard(bingImage));
+            }
+        };
     }
 
     /**
-     * 替换底部的月度历史链接
+     * 图片卡片，每张图片只渲染一次
      *
-     * @param monthMap
-     * @param nowMonth
+     * @param bingImage
      * @return
      */
-    public String replaceMonthHistory(String html, Map<String, List<Images>> monthMap, String nowMonth) {
-        StringBuilder monthHistory = new StringBuilder();
-        for (String month : monthMap.keySet()) {
-            String history = MonthHistory.getMonthHistory(month + ".html", month);
-            if (month != null && month.equals(nowMonth)) {
-                history = history.replace(MonthHistory.VAR_MONTH_HISTORY_MONTH_COLOR, MonthHistory.VAR_MONTH_HISTORY_NOW_MONTH_COLOR);
-            }
-            monthHistory.append(history + " ");
+    public String getCard(Images bingImage) {
+        String card = cards.get(bingImage);
+        if (card == null) {
+            StringBuilder out = new StringBuilder(1024);
+            ImgCard.appendImgCard(out, bingImage, context.getRegion(), thumbnails, getDetailUrl(bingImage));
+            card = out.toString();
+            cards.put(bingImage, card);
         }
-        return html.replace(MonthHistory.VAR_MONTH_HISTORY, monthHistory.toString());
+        return card;
     }
 
 }
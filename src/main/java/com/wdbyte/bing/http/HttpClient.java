@@ -0,0 +1,26 @@
+package com.wdbyte.bing.http;
+
+import java.io.IOException;
+
+/**
+ * HTTP 客户端
+ * <p>
+ * 默认实现为 {@link UrlConnectionHttpClient}，可以通过 {@link com.wdbyte.bing.HttpUtls#setHttpClient(HttpClient)}
+ * 替换，例如在没有网络的环境中指向本地的模拟服务。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public interface HttpClient {
+
+    /**
+     * 执行 GET 请求，响应为 2xx 时由 handler 处理响应流；响应为 304 时不调用 handler
+     *
+     * @param request
+     * @param handler
+     * @param <T>
+     * @return
+     * @throws IOException 请求失败且重试次数用完，或者服务端返回了其他状态码
+     */
+    <T> HttpResponse<T> get(HttpRequest request, ResponseHandler<T> handler) throws IOException;
+}
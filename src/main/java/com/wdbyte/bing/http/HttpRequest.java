@@ -0,0 +1,55 @@
+package com.wdbyte.bing.http;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP 请求
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class HttpRequest {
+
+    private final String url;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    public HttpRequest(String url) {
+        this.url = url;
+    }
+
+    public HttpRequest header(String name, String value) {
+        if (value != null) {
+            headers.put(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 带上上一次响应的校验信息，内容没有变化时服务端返回 304
+     *
+     * @param validator 为 null 时不发送条件请求
+     * @return
+     */
+    public HttpRequest conditional(HttpValidator validator) {
+        if (validator != null) {
+            header("If-None-Match", validator.getEtag());
+            header("If-Modified-Since", validator.getLastModified());
+        }
+        return this;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
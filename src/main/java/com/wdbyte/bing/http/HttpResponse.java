@@ -0,0 +1,52 @@
+package com.wdbyte.bing.http;
+
+/**
+ * HTTP 响应
+ *
+ * @param <T> 响应内容经过 {@link ResponseHandler} 处理后的结果
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class HttpResponse<T> {
+
+    private final int status;
+    private final T body;
+    private final HttpValidator validator;
+
+    public HttpResponse(int status, T body, HttpValidator validator) {
+        this.status = status;
+        this.body = body;
+        this.validator = validator;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * 内容没有变化
+     *
+     * @return
+     */
+    public boolean isNotModified() {
+        return status == 304;
+    }
+
+    /**
+     * 处理后的响应内容，304 时为 null
+     *
+     * @return
+     */
+    public T getBody() {
+        return body;
+    }
+
+    /**
+     * 响应中的 ETag 和 Last-Modified，都没有时为 null
+     *
+     * @return
+     */
+    public HttpValidator getValidator() {
+        return validator;
+    }
+}
@@ -0,0 +1,66 @@
+package com.wdbyte.bing.http;
+
+import java.util.Objects;
+
+/**
+ * 条件请求使用的 ETag 和 Last-Modified
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class HttpValidator {
+
+    private String etag;
+    private String lastModified;
+
+    public HttpValidator() {
+    }
+
+    public HttpValidator(String etag, String lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 两者都为空时返回 null
+     *
+     * @param etag
+     * @param lastModified
+     * @return
+     */
+    public static HttpValidator of(String etag, String lastModified) {
+        if (etag == null && lastModified == null) {
+            return null;
+        }
+        return new HttpValidator(etag, lastModified);
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) { return true; }
+        if (o == null || getClass() != o.getClass()) { return false; }
+        HttpValidator that = (HttpValidator)o;
+        return Objects.equals(etag, that.etag) && Objects.equals(lastModified, that.lastModified);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(etag, lastModified);
+    }
+}
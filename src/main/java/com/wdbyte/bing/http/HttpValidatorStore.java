@@ -0,0 +1,69 @@
+package com.wdbyte.bing.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+
+import com.wdbyte.bing.FileWriteUtils;
+
+/**
+ * 保存每个 URL 上一次响应的 ETag 和 Last-Modified，用于下一次的条件请求
+ * <p>
+ * 文件位于本地缓存目录 {@link com.wdbyte.bing.RegionContext#getHttpValidatorPath()}，不提交到仓库。
+ * GitHub Actions 上通过 workflow 中的 actions/cache 在两次运行之间保留，缓存缺失时退化为普通请求。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class HttpValidatorStore {
+
+    private final Path path;
+    private final Map<String, HttpValidator> validators;
+
+    private HttpValidatorStore(Path path, Map<String, HttpValidator> validators) {
+        this.path = path;
+        this.validators = validators;
+    }
+
+    /**
+     * 读取保存的校验信息，文件不存在或者无法解析时返回空的记录
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static HttpValidatorStore read(Path path) throws IOException {
+        Map<String, HttpValidator> validators = null;
+        if (Files.exists(path)) {
+            try {
+                validators = JSON.parseObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8),
+                    new TypeReference<TreeMap<String, HttpValidator>>() {});
+            } catch (RuntimeException e) {
+                validators = null;
+            }
+        }
+        return new HttpValidatorStore(path, validators == null ? new TreeMap<>() : validators);
+    }
+
+    public HttpValidator get(String url) {
+        return validators.get(url);
+    }
+
+    public void put(String url, HttpValidator validator) {
+        if (validator == null) {
+            validators.remove(url);
+        } else {
+            validators.put(url, validator);
+        }
+    }
+
+    public void write() throws IOException {
+        FileWriteUtils.writeIfChanged(path, JSON.toJSONString(validators).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,50 @@
+package com.wdbyte.bing.http;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求限速，多个线程共享时保证相邻两次请求的间隔不小于设定值
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextNanos;
+
+    /**
+     * @param permitsPerSecond 每秒允许的请求数，小于等于 0 时不限速
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond <= 0 ? 0 : (long)(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.nextNanos = System.nanoTime();
+    }
+
+    /**
+     * 等待到允许发出下一次请求
+     *
+     * @throws IOException 等待时线程被中断
+     */
+    public void acquire() throws IOException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextNanos);
+            nextNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.wdbyte.bing.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 响应处理，直接读取已解压的响应输入流
+ *
+ * @param <T>
+ * @author niulang
+ * @date 2026/10/16
+ */
+@FunctionalInterface
+public interface ResponseHandler<T> {
+
+    T handle(InputStream in) throws IOException;
+
+    /**
+     * 需要区分 2xx 状态码时覆盖此方法，例如断点续传时的 200 和 206
+     *
+     * @param status
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    default T handle(int status, InputStream in) throws IOException {
+        return handle(in);
+    }
+}
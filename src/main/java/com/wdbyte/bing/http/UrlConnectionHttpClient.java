@@ -0,0 +1,204 @@
+package com.wdbyte.bing.http;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.metrics.Metrics;
+
+/**
+ * 基于 HttpURLConnection 的 HTTP 客户端
+ * <p>
+ * 请求结束后读完并关闭响应流而不调用 disconnect()，连接交还给 JDK 的 keep-alive 缓存，同一主机的后续请求复用连接。
+ * 请求带上 Accept-Encoding: gzip 并自行解压；连接失败、超时以及 429、5xx 响应按指数退避重试。
+ * <p>
+ * 超时和重试可以通过系统属性调整：
+ * bing.http.connectTimeout、bing.http.readTimeout（毫秒），bing.http.maxRetries，bing.http.retryBackoff（毫秒）。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class UrlConnectionHttpClient implements HttpClient {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/83.0.4103.116 Safari/537.36";
+
+    /**
+     * 退避时间上限
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+
+    public UrlConnectionHttpClient(int connectTimeoutMillis, int readTimeoutMillis, int maxRetries,
+        long retryBackoffMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+    }
+
+    /**
+     * 使用系统属性中的配置创建客户端
+     *
+     * @return
+     */
+    public static UrlConnectionHttpClient fromSystemProperties() {
+        return new UrlConnectionHttpClient(
+            Integer.getInteger("bing.http.connectTimeout", 10_000),
+            Integer.getInteger("bing.http.readTimeout", 30_000),
+            Integer.getInteger("bing.http.maxRetries", 3),
+            Long.getLong("bing.http.retryBackoff", 1_000L));
+    }
+
+    @Override
+    public <T> HttpResponse<T> get(HttpRequest request, ResponseHandler<T> handler) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return execute(request, handler);
+            } catch (RetryableException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                Metrics.increment(Metrics.HTTP_RETRIES);
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, retryBackoffMillis << Math.min(attempt, 16));
+                if (e.retryAfterMillis > 0) {
+                    backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(backoff, e.retryAfterMillis));
+                }
+                LogUtils.log("http request failed,retry after %dms,attempt:%d,url:%s,reason:%s", backoff, attempt + 1,
+                    request, e.getMessage());
+                sleep(backoff);
+            }
+        }
+    }
+
+    private <T> HttpResponse<T> execute(HttpRequest request, ResponseHandler<T> handler) throws IOException {
+        HttpURLConnection connection;
+        int status;
+        Metrics.increment(Metrics.HTTP_REQUESTS);
+        try {
+            connection = (HttpURLConnection)new URL(request.getUrl()).openConnection();
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            status = connection.getResponseCode();
+        } catch (IOException e) {
+            throw new RetryableException(e.toString(), e, 0);
+        }
+
+        HttpValidator validator = HttpValidator.of(connection.getHeaderField("ETag"),
+            connection.getHeaderField("Last-Modified"));
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            discard(connection, status);
+            return new HttpResponse<>(status, null, validator);
+        }
+        if (status < 200 || status >= 300) {
+            discard(connection, status);
+            String message = "http status " + status;
+            if (status == 429 || status >= 500) {
+                throw new RetryableException(message, null, parseRetryAfter(connection.getHeaderField("Retry-After")));
+            }
+            throw new IOException(message + ",url:" + request);
+        }
+
+        InputStream raw;
+        try {
+            raw = connection.getInputStream();
+        } catch (IOException e) {
+            throw new RetryableException(e.toString(), e, 0);
+        }
+        try (InputStream in = decode(connection, raw)) {
+            // handler 可能会关闭传入的流，关闭前需要读完剩余内容，连接才能被复用
+            T body = handler.handle(status, new FilterInputStream(in) {
+                @Override
+                public void close() {
+                }
+            });
+            drain(in);
+            return new HttpResponse<>(status, body, validator);
+        } catch (RetryableException e) {
+            throw e;
+        } catch (SocketTimeoutException | SocketException e) {
+            throw new RetryableException(e.toString(), e, 0);
+        }
+    }
+
+    private static InputStream decode(HttpURLConnection connection, InputStream raw) throws IOException {
+        InputStream in = new BufferedInputStream(raw, 16 * 1024);
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            return new GZIPInputStream(in, 16 * 1024);
+        }
+        return in;
+    }
+
+    /**
+     * 丢弃非 2xx 响应的内容并关闭响应流，连接才能被复用；4xx、5xx 的内容在错误流中，其他状态码在输入流中
+     */
+    private static void discard(HttpURLConnection connection, int status) {
+        try {
+            drain(status >= 400 ? connection.getErrorStream() : connection.getInputStream());
+        } catch (IOException e) {
+            // 读取失败时连接不会被复用，不影响本次结果
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[4 * 1024];
+            while (stream.read(buffer) != -1) {
+                // 丢弃剩余内容
+            }
+        }
+    }
+
+    private static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 可以重试的请求失败
+     */
+    private static class RetryableException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterMillis;
+
+        RetryableException(String message, Throwable cause, long retryAfterMillis) {
+            super(message, cause);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+}
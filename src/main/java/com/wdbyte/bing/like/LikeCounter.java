@@ -0,0 +1,187 @@
+package com.wdbyte.bing.like;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图片点赞计数，按 (地区, 日期) 计数
+ * <p>
+ * 地区和日期压缩成一个 long 作为键：地区代码每个字符 7 位、最多 5 个字符，低 24 位为 epochDay。
+ * 每个键一个 {@link LongAdder}，并发点赞同一张图片时分散到不同的单元累加，互不竞争；
+ * 读取时的合计不是原子快照，持久化和排行只需要最终一致。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeCounter {
+
+    private static final int REGION_LENGTH = 5;
+    private static final int DAY_BITS = 24;
+    private static final long DAY_MASK = (1L << DAY_BITS) - 1;
+
+    private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * 点赞一次
+     *
+     * @param region
+     * @param date yyyy-MM-dd
+     * @return 点赞后的计数
+     */
+    public long increment(String region, String date) {
+        LongAdder adder = counts.computeIfAbsent(key(region, date), key -> new LongAdder());
+        adder.increment();
+        return adder.sum();
+    }
+
+    public long get(String region, String date) {
+        LongAdder adder = counts.get(key(region, date));
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * 设置计数，用于从日志恢复
+     *
+     * @param key
+     * @param count
+     */
+    void set(long key, long count) {
+        LongAdder adder = new LongAdder();
+        adder.add(count);
+        counts.put(key, adder);
+    }
+
+    /**
+     * 所有键当前的计数
+     *
+     * @return
+     */
+    Map<Long, Long> snapshot() {
+        Map<Long, Long> snapshot = new HashMap<>(counts.size() * 2);
+        for (Map.Entry<Long, LongAdder> entry : counts.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    /**
+     * 地区内点赞最多的图片，计数相同时日期新的在前
+     *
+     * @param region
+     * @param limit
+     * @return
+     */
+    public List<Entry> top(String region, int limit) {
+        return top(snapshot(), region, limit);
+    }
+
+    /**
+     * 从计数快照中取地区内点赞最多的图片
+     *
+     * @param snapshot 键 -> 计数
+     * @param region
+     * @param limit
+     * @return
+     */
+    public static List<Entry> top(Map<Long, Long> snapshot, String region, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>(0);
+        }
+        long regionBits = key(region, 0) >>> DAY_BITS;
+        Comparator<Entry> order = Comparator.comparingLong(Entry::getCount).thenComparingInt(entry -> entry.epochDay);
+        // 小顶堆只保留 limit 个
+        PriorityQueue<Entry> heap = new PriorityQueue<>(limit + 1, order);
+        for (Map.Entry<Long, Long> entry : snapshot.entrySet()) {
+            long key = entry.getKey();
+            if (key >>> DAY_BITS != regionBits || entry.getValue() <= 0) {
+                continue;
+            }
+            heap.add(new Entry(getRegion(key), getEpochDay(key), entry.getValue()));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Entry> top = new ArrayList<>(heap);
+        top.sort(order.reversed());
+        return top;
+    }
+
+    /**
+     * @param region 地区代码，不区分大小写
+     * @param date yyyy-MM-dd
+     * @return
+     * @throws IllegalArgumentException 地区代码或者日期不合法
+     */
+    public static long key(String region, String date) {
+        return key(region, LocalDate.parse(date).toEpochDay());
+    }
+
+    static long key(String region, long epochDay) {
+        if (region == null || region.isEmpty() || region.length() > REGION_LENGTH) {
+            throw new IllegalArgumentException("invalid region:" + region);
+        }
+        if (epochDay < 0 || epochDay > DAY_MASK) {
+            throw new IllegalArgumentException("invalid epoch day:" + epochDay);
+        }
+        String lower = region.toLowerCase(Locale.ROOT);
+        long key = 0;
+        for (int i = 0; i < REGION_LENGTH; i++) {
+            char c = i < lower.length() ? lower.charAt(i) : 0;
+            if (i < lower.length() && (c == 0 || c > 127)) {
+                throw new IllegalArgumentException("invalid region:" + region);
+            }
+            key = key << 7 | c;
+        }
+        return key << DAY_BITS | epochDay;
+    }
+
+    static String getRegion(long key) {
+        StringBuilder region = new StringBuilder(REGION_LENGTH);
+        for (int i = REGION_LENGTH - 1; i >= 0; i--) {
+            char c = (char)(key >>> (DAY_BITS + i * 7) & 0x7F);
+            if (c != 0) {
+                region.append(c);
+            }
+        }
+        return region.toString();
+    }
+
+    static int getEpochDay(long key) {
+        return (int)(key & DAY_MASK);
+    }
+
+    /**
+     * 一张图片的点赞数
+     */
+    public static class Entry {
+        private final String region;
+        private final int epochDay;
+        private final long count;
+
+        Entry(String region, int epochDay, long count) {
+            this.region = region;
+            this.epochDay = epochDay;
+            this.count = count;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public String getDate() {
+            return LocalDate.ofEpochDay(epochDay).toString();
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
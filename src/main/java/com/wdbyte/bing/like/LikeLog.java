@@ -0,0 +1,147 @@
+package com.wdbyte.bing.like;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.LogUtils;
+
+/**
+ * 点赞计数的追加日志
+ * <p>
+ * 文件以 4 字节魔数开头，之后每条记录 16 字节：键（见 {@link LikeCounter#key(String, String)}）和该键当时的总数。
+ * 记录的是总数而不是增量，重放时同一个键以最后一条为准，重复写入也不会多算。
+ * 写入中途退出留下的不完整记录在打开时截掉。记录数明显多于键数时 {@link #compact(Map)} 重写为每个键一条。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeLog implements Closeable {
+
+    private static final int MAGIC = 0x424C4B31;
+    private static final int HEADER_SIZE = 4;
+    private static final int RECORD_SIZE = 16;
+
+    private final Path path;
+    private FileChannel channel;
+    private long records;
+
+    private LikeLog(Path path, FileChannel channel, long records) {
+        this.path = path;
+        this.channel = channel;
+        this.records = records;
+    }
+
+    /**
+     * 打开日志用于追加，不存在时创建
+     *
+     * @param path
+     * @param counts 重放得到的 键 -> 计数
+     * @return
+     * @throws IOException
+     */
+    public static LikeLog open(Path path, Map<Long, Long> counts) throws IOException {
+        if (!Files.exists(path)) {
+            writeSnapshot(path, new HashMap<>(0));
+        }
+        long records = replay(path, counts);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        long validSize = HEADER_SIZE + records * RECORD_SIZE;
+        if (channel.size() > validSize) {
+            LogUtils.log("like log truncated,path:%s,size:%d,valid:%d", path, channel.size(), validSize);
+            channel.truncate(validSize);
+        }
+        channel.position(validSize);
+        return new LikeLog(path, channel, records);
+    }
+
+    /**
+     * 只读重放，不修改文件，可以在服务运行时读取；文件不存在时返回空
+     *
+     * @param path
+     * @return 键 -> 计数
+     * @throws IOException
+     */
+    public static Map<Long, Long> read(Path path) throws IOException {
+        Map<Long, Long> counts = new HashMap<>();
+        if (Files.exists(path)) {
+            replay(path, counts);
+        }
+        return counts;
+    }
+
+    private static long replay(Path path, Map<Long, Long> counts) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("invalid like log:" + path);
+        }
+        long records = 0;
+        while (buffer.remaining() >= RECORD_SIZE) {
+            counts.put(buffer.getLong(), buffer.getLong());
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * 追加一批记录并刷到磁盘
+     *
+     * @param changes 键 -> 计数
+     * @throws IOException
+     */
+    public void append(Map<Long, Long> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(changes.size() * RECORD_SIZE);
+        for (Map.Entry<Long, Long> entry : changes.entrySet()) {
+            buffer.putLong(entry.getKey()).putLong(entry.getValue());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        records += changes.size();
+    }
+
+    /**
+     * 用当前计数重写日志，每个键只保留一条
+     *
+     * @param counts 键 -> 计数
+     * @throws IOException
+     */
+    public void compact(Map<Long, Long> counts) throws IOException {
+        channel.close();
+        writeSnapshot(path, counts);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        LogUtils.log("like log compacted,path:%s,records:%d->%d", path, records, counts.size());
+        records = counts.size();
+    }
+
+    private static void writeSnapshot(Path path, Map<Long, Long> counts) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + counts.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC);
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            buffer.putLong(entry.getKey()).putLong(entry.getValue());
+        }
+        FileWriteUtils.writeAtomically(path, buffer.array());
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,154 @@
+package com.wdbyte.bing.like;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.Wallpaper;
+
+/**
+ * 页面上"喜欢"按钮的后端，使用 JDK 自带的 HTTP 服务
+ * <pre>
+ * POST /api/love?region=en-us&amp;date=2026-10-16     点赞，返回 {"count":n}
+ * GET  /api/love?region=en-us&amp;date=2026-10-16     查询计数
+ * GET  /api/love/top?region=en-us&amp;limit=10        点赞最多的图片
+ * </pre>
+ * 地区和日期超出 {@link LikeTargets} 的范围时返回 400。
+ * 系统属性：
+ * bing.likes.port 监听端口，默认 8081；
+ * bing.likes.threads 处理请求的线程数，默认 CPU 核数。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeServer {
+
+    private static final int MAX_TOP = 100;
+
+    public static void main(String[] args) throws IOException {
+        LikeService service = LikeService.open(LikeService.getLogPath());
+        service.start(Long.getLong("bing.likes.flushInterval", 1_000L));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                service.close();
+            } catch (IOException e) {
+                LogUtils.log("like service close failed,reason:%s", e);
+            }
+        }));
+        LikeTargets targets = LikeTargets.load(Wallpaper.getDefaultRegions(), Clock.systemUTC());
+        int port = Integer.getInteger("bing.likes.port", 8081);
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Integer.getInteger("bing.likes.threads", Runtime.getRuntime().availableProcessors()));
+        start(service, targets, new InetSocketAddress(port), executor);
+        LogUtils.log("like server started,port:%d", port);
+    }
+
+    /**
+     * 启动 HTTP 服务
+     *
+     * @param service
+     * @param targets 可以点赞的地区和日期
+     * @param address
+     * @param executor
+     * @return
+     * @throws IOException
+     */
+    public static HttpServer start(LikeService service, LikeTargets targets, InetSocketAddress address,
+        ExecutorService executor) throws IOException {
+        HttpServer server = HttpServer.create(address, 0);
+        server.createContext("/api/love", exchange -> {
+            try {
+                handle(service, targets, exchange);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                send(exchange, 400, error(e.getMessage()));
+            } catch (RuntimeException e) {
+                LogUtils.log("like request failed,uri:%s,reason:%s", exchange.getRequestURI(), e);
+                send(exchange, 500, error("internal error"));
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    private static void handle(LikeService service, LikeTargets targets, HttpExchange exchange)
+        throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String region = require(query, "region");
+        targets.checkRegion(region);
+        String method = exchange.getRequestMethod();
+        JSONObject result = new JSONObject();
+        if (exchange.getRequestURI().getPath().endsWith("/top")) {
+            int limit = Math.min(MAX_TOP, Integer.parseInt(query.getOrDefault("limit", "10")));
+            result.put("top", service.top(region, limit));
+        } else if ("POST".equalsIgnoreCase(method)) {
+            String date = require(query, "date");
+            targets.check(region, date);
+            result.put("count", service.increment(region, date));
+        } else if ("GET".equalsIgnoreCase(method)) {
+            String date = require(query, "date");
+            targets.check(region, date);
+            result.put("count", service.get(region, date));
+        } else {
+            send(exchange, 405, error("method not allowed"));
+            return;
+        }
+        send(exchange, 200, result);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>(4);
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                    URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static String require(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("missing parameter:" + name);
+        }
+        return value;
+    }
+
+    private static JSONObject error(String message) {
+        JSONObject error = new JSONObject();
+        error.put("error", message);
+        return error;
+    }
+
+    private static void send(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = JSON.toJSONString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.wdbyte.bing.like;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.wdbyte.bing.LogUtils;
+
+/**
+ * 可嵌入的点赞服务：内存计数加定时批量持久化，不依赖外部数据库
+ * <p>
+ * 点赞只更新内存中的 {@link LikeCounter}；后台线程按固定间隔把有变化的键追加到 {@link LikeLog}，
+ * 日志记录数超过键数的 {@value #COMPACT_RATIO} 倍时压缩。进程异常退出最多丢失最后一个间隔内的点赞。
+ * <p>
+ * 系统属性：
+ * bing.likes.root 日志目录，默认 .cache/likes；
+ * bing.likes.flushInterval 持久化间隔，毫秒，默认 1 秒。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeService implements Closeable {
+
+    public static final String LOG_FILE_NAME = "likes.log";
+
+    private static final int COMPACT_RATIO = 4;
+    private static final int COMPACT_MIN_RECORDS = 4096;
+
+    private final LikeCounter counter;
+    private final LikeLog log;
+    /**
+     * 已写入日志的计数，只在 {@link #flush()} 中访问
+     */
+    private final Map<Long, Long> persisted;
+    private ScheduledExecutorService flusher;
+
+    private LikeService(LikeCounter counter, LikeLog log, Map<Long, Long> persisted) {
+        this.counter = counter;
+        this.log = log;
+        this.persisted = persisted;
+    }
+
+    /**
+     * 默认日志路径
+     *
+     * @return
+     */
+    public static Path getLogPath() {
+        return Paths.get(System.getProperty("bing.likes.root", ".cache/likes")).resolve(LOG_FILE_NAME);
+    }
+
+    /**
+     * 打开日志并恢复计数，此时还没有开始定时持久化
+     *
+     * @param logPath
+     * @return
+     * @throws IOException
+     */
+    public static LikeService open(Path logPath) throws IOException {
+        Map<Long, Long> persisted = new HashMap<>();
+        LikeLog log = LikeLog.open(logPath, persisted);
+        LikeCounter counter = new LikeCounter();
+        for (Map.Entry<Long, Long> entry : persisted.entrySet()) {
+            counter.set(entry.getKey(), entry.getValue());
+        }
+        LogUtils.log("like service opened,path:%s,keys:%d,records:%d", logPath, persisted.size(), log.getRecords());
+        return new LikeService(counter, log, persisted);
+    }
+
+    /**
+     * 开始定时持久化
+     *
+     * @param intervalMillis
+     */
+    public synchronized void start(long intervalMillis) {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (IOException | RuntimeException e) {
+                LogUtils.log("like log flush failed,reason:%s", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public long increment(String region, String date) {
+        return counter.increment(region, date);
+    }
+
+    public long get(String region, String date) {
+        return counter.get(region, date);
+    }
+
+    public List<LikeCounter.Entry> top(String region, int limit) {
+        return counter.top(region, limit);
+    }
+
+    /**
+     * 把有变化的计数追加到日志，必要时压缩
+     *
+     * @return 追加的记录数
+     * @throws IOException
+     */
+    public synchronized int flush() throws IOException {
+        Map<Long, Long> changes = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : counter.snapshot().entrySet()) {
+            if (!entry.getValue().equals(persisted.get(entry.getKey()))) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        log.append(changes);
+        persisted.putAll(changes);
+        if (log.getRecords() >= COMPACT_MIN_RECORDS && log.getRecords() > (long)persisted.size() * COMPACT_RATIO) {
+            log.compact(persisted);
+        }
+        return changes.size();
+    }
+
+    /**
+     * 停止定时任务，写入剩余的计数
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher = null;
+        }
+        try {
+            flush();
+        } finally {
+            log.close();
+        }
+    }
+}
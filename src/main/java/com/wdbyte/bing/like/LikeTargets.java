@@ -0,0 +1,87 @@
+package com.wdbyte.bing.like;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+
+/**
+ * 可以点赞的图片范围：只接受已知地区，日期不早于该地区归档中最早的一天、不晚于明天（时区差异）
+ * <p>
+ * 点赞接口不需要登录，每个新的地区和日期组合都会占用内存和日志，不限制范围时任何人都可以让它们无限增长。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeTargets {
+
+    /**
+     * 地区 -> 归档中最早的日期
+     */
+    private final Map<String, LocalDate> firstDates;
+    private final Clock clock;
+
+    public LikeTargets(Map<String, LocalDate> firstDates, Clock clock) {
+        this.firstDates = Collections.unmodifiableMap(new HashMap<>(firstDates));
+        this.clock = clock;
+    }
+
+    /**
+     * 从各地区的归档中读取最早的日期
+     *
+     * @param regions
+     * @param clock
+     * @return
+     * @throws IOException
+     */
+    public static LikeTargets load(String[] regions, Clock clock) throws IOException {
+        Map<String, LocalDate> firstDates = new HashMap<>();
+        for (String region : regions) {
+            RegionContext context = RegionContext.of(region);
+            int first = Integer.MAX_VALUE;
+            for (Images images : BingFileUtils.readBing(context)) {
+                first = Math.min(first, images.getEpochDay());
+            }
+            if (first != Integer.MAX_VALUE) {
+                firstDates.put(context.getRegion(), LocalDate.ofEpochDay(first));
+            }
+        }
+        return new LikeTargets(firstDates, clock);
+    }
+
+    /**
+     * 检查地区
+     *
+     * @param region
+     * @throws IllegalArgumentException 未知地区
+     */
+    public void checkRegion(String region) {
+        if (!firstDates.containsKey(region.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("unknown region:" + region);
+        }
+    }
+
+    /**
+     * 检查地区和日期
+     *
+     * @param region
+     * @param date yyyy-MM-dd
+     * @throws IllegalArgumentException 未知地区或者日期超出范围
+     * @throws java.time.DateTimeException 日期格式不对
+     */
+    public void check(String region, String date) {
+        checkRegion(region);
+        LocalDate localDate = LocalDate.parse(date);
+        if (localDate.isBefore(firstDates.get(region.toLowerCase(Locale.ROOT)))
+            || localDate.isAfter(LocalDate.now(clock).plusDays(1))) {
+            throw new IllegalArgumentException("date out of range:" + date);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.wdbyte.bing.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter.Feature;
+
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.LogUtils;
+
+/**
+ * 运行指标：各阶段耗时和计数，按地区分别统计
+ * <p>
+ * 当前地区保存在线程变量中，地区任务开始时通过 {@link #setRegion(String)} 设置，提交到其他线程池的任务需要自行传递；
+ * 不属于任何地区的指标记在 global 下。运行结束后通过 {@link #writeReport()} 输出 JSON 报告，
+ * 指定 -Dbing.metrics.prometheus 时同时输出 Prometheus 文本格式。
+ * <p>
+ * 系统属性：
+ * bing.metrics.report JSON 报告路径，默认 .cache/metrics/report.json；
+ * bing.metrics.prometheus Prometheus 文本路径，默认不输出。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class Metrics {
+
+    public static final String GLOBAL = "global";
+
+    public static final String FILES_WRITTEN = "files.written";
+    public static final String FILES_SKIPPED = "files.skipped";
+    public static final String BYTES_WRITTEN = "bytes.written";
+    public static final String FILES_PRECOMPRESSED = "files.precompressed";
+    public static final String HTTP_REQUESTS = "http.requests";
+    public static final String HTTP_RETRIES = "http.retries";
+
+    private static final ThreadLocal<String> REGION = new ThreadLocal<>();
+
+    /**
+     * 地区 -> 计数器名称 -> 计数
+     */
+    private static final Map<String, Map<String, LongAdder>> COUNTERS = new ConcurrentHashMap<>();
+    /**
+     * 地区 -> 阶段 -> 耗时
+     */
+    private static final Map<String, Map<String, TimerStat>> TIMERS = new ConcurrentHashMap<>();
+
+    private static volatile long startMillis = System.currentTimeMillis();
+
+    /**
+     * 当前线程所属地区，没有时为 null
+     *
+     * @return
+     */
+    public static String getRegion() {
+        return REGION.get();
+    }
+
+    /**
+     * 设置当前线程所属地区，传入 null 时清除
+     *
+     * @param region
+     */
+    public static void setRegion(String region) {
+        if (region == null) {
+            REGION.remove();
+        } else {
+            REGION.set(region);
+        }
+    }
+
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long delta) {
+        COUNTERS.computeIfAbsent(currentRegion(), key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(name, key -> new LongAdder())
+            .add(delta);
+    }
+
+    /**
+     * 开始计时，调用 {@link Timer#stop()} 时记录到当前地区；通常使用 {@link #time(String, Phase)}
+     *
+     * @param phase 阶段名称，如 fetch、html.detail
+     * @return
+     */
+    public static Timer startTimer(String phase) {
+        return new Timer(currentRegion(), phase, System.nanoTime());
+    }
+
+    /**
+     * 执行一个阶段并计时，失败时同样记录耗时
+     *
+     * @param phase 阶段名称
+     * @param task
+     * @return task 的返回值
+     * @throws IOException
+     */
+    public static <T> T time(String phase, Phase<T> task) throws IOException {
+        Timer timer = startTimer(phase);
+        try {
+            return task.run();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * 执行一个没有返回值的阶段并计时
+     *
+     * @param phase 阶段名称
+     * @param task
+     * @throws IOException
+     */
+    public static void time(String phase, VoidPhase task) throws IOException {
+        Timer timer = startTimer(phase);
+        try {
+            task.run();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * 清空所有指标，重新开始计时
+     */
+    public static void reset() {
+        COUNTERS.clear();
+        TIMERS.clear();
+        startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 按系统属性输出报告，并打印一行汇总
+     *
+     * @throws IOException
+     */
+    public static void writeReport() throws IOException {
+        JSONObject report = toJson();
+        Path reportPath = Paths.get(System.getProperty("bing.metrics.report", ".cache/metrics/report.json"));
+        FileWriteUtils.writeAtomically(reportPath, report.toJSONString(Feature.PrettyFormat)
+            .getBytes(StandardCharsets.UTF_8));
+        String prometheus = System.getProperty("bing.metrics.prometheus");
+        if (prometheus != null) {
+            FileWriteUtils.writeAtomically(Paths.get(prometheus), toPrometheus().getBytes(StandardCharsets.UTF_8));
+        }
+        LogUtils.log("metrics,duration:%dms,counters:%s,report:%s", report.getLongValue("durationMillis"),
+            report.getJSONObject("counters"), reportPath);
+    }
+
+    /**
+     * JSON 报告，包含汇总和各地区的明细
+     *
+     * @return
+     */
+    public static JSONObject toJson() {
+        JSONObject report = new JSONObject();
+        report.put("start", Instant.ofEpochMilli(startMillis).toString());
+        report.put("durationMillis", System.currentTimeMillis() - startMillis);
+        Map<String, TimerStat> totalTimers = new TreeMap<>();
+        Map<String, Long> totalCounters = new TreeMap<>();
+        JSONObject regions = new JSONObject();
+        for (String region : regionKeys()) {
+            JSONObject regionJson = new JSONObject();
+            JSONObject timerJson = new JSONObject();
+            for (Map.Entry<String, TimerStat> entry : new TreeMap<>(timers(region)).entrySet()) {
+                timerJson.put(entry.getKey(), entry.getValue().toJson());
+                totalTimers.computeIfAbsent(entry.getKey(), key -> new TimerStat()).merge(entry.getValue());
+            }
+            JSONObject counterJson = new JSONObject();
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters(region)).entrySet()) {
+                counterJson.put(entry.getKey(), entry.getValue().sum());
+                totalCounters.merge(entry.getKey(), entry.getValue().sum(), Long::sum);
+            }
+            regionJson.put("timers", timerJson);
+            regionJson.put("counters", counterJson);
+            regions.put(region, regionJson);
+        }
+        JSONObject timerJson = new JSONObject();
+        for (Map.Entry<String, TimerStat> entry : totalTimers.entrySet()) {
+            timerJson.put(entry.getKey(), entry.getValue().toJson());
+        }
+        report.put("timers", timerJson);
+        report.put("counters", new JSONObject(totalCounters));
+        report.put("regions", regions);
+        return report;
+    }
+
+    /**
+     * Prometheus 文本格式，阶段耗时以秒为单位，计数器名称中不能用于指标名的字符替换为下划线，
+     * 标签值中的反斜杠、双引号和换行按文本格式转义
+     *
+     * @return
+     */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder(4 * 1024);
+        out.append("# TYPE bing_run_duration_seconds gauge\n");
+        out.append("bing_run_duration_seconds ").append(seconds(
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - startMillis))).append('\n');
+        Map<String, Map<String, TimerStat>> timers = new TreeMap<>();
+        Map<String, Map<String, Long>> counters = new TreeMap<>();
+        for (String region : regionKeys()) {
+            for (Map.Entry<String, TimerStat> entry : timers(region).entrySet()) {
+                timers.computeIfAbsent(entry.getKey(), key -> new TreeMap<>()).put(region, entry.getValue());
+            }
+            for (Map.Entry<String, LongAdder> entry : counters(region).entrySet()) {
+                counters.computeIfAbsent(entry.getKey(), key -> new TreeMap<>()).put(region, entry.getValue().sum());
+            }
+        }
+        out.append("# TYPE bing_phase_seconds summary\n");
+        for (Map.Entry<String, Map<String, TimerStat>> phase : timers.entrySet()) {
+            for (Map.Entry<String, TimerStat> entry : phase.getValue().entrySet()) {
+                String labels = "{phase=\"" + escape(phase.getKey()) + "\",region=\"" + escape(entry.getKey())
+                    + "\"}";
+                out.append("bing_phase_seconds_sum").append(labels).append(' ')
+                    .append(seconds(entry.getValue().totalNanos.sum())).append('\n');
+                out.append("bing_phase_seconds_count").append(labels).append(' ')
+                    .append(entry.getValue().count.sum()).append('\n');
+            }
+        }
+        out.append("# TYPE bing_phase_max_seconds gauge\n");
+        for (Map.Entry<String, Map<String, TimerStat>> phase : timers.entrySet()) {
+            for (Map.Entry<String, TimerStat> entry : phase.getValue().entrySet()) {
+                out.append("bing_phase_max_seconds{phase=\"").append(escape(phase.getKey())).append("\",region=\"")
+                    .append(escape(entry.getKey())).append("\"} ").append(seconds(entry.getValue().maxNanos.get()))
+                    .append('\n');
+            }
+        }
+        for (Map.Entry<String, Map<String, Long>> counter : counters.entrySet()) {
+            String name = "bing_" + counter.getKey().replaceAll("[^A-Za-z0-9_]", "_") + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            for (Map.Entry<String, Long> entry : counter.getValue().entrySet()) {
+                out.append(name).append("{region=\"").append(escape(entry.getKey())).append("\"} ")
+                    .append(entry.getValue()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 转义 Prometheus 标签值
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String currentRegion() {
+        String region = REGION.get();
+        return region == null ? GLOBAL : region;
+    }
+
+    private static Set<String> regionKeys() {
+        Set<String> regions = new TreeSet<>(COUNTERS.keySet());
+        regions.addAll(TIMERS.keySet());
+        return regions;
+    }
+
+    private static Map<String, TimerStat> timers(String region) {
+        Map<String, TimerStat> timers = TIMERS.get(region);
+        return timers == null ? new TreeMap<>() : timers;
+    }
+
+    private static Map<String, LongAdder> counters(String region) {
+        Map<String, LongAdder> counters = COUNTERS.get(region);
+        return counters == null ? new TreeMap<>() : counters;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+    }
+
+    @FunctionalInterface
+    public interface Phase<T> {
+        T run() throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface VoidPhase {
+        void run() throws IOException;
+    }
+
+    /**
+     * 一次计时
+     */
+    public static class Timer {
+        private final String region;
+        private final String phase;
+        private final long startNanos;
+
+        private Timer(String region, String phase, long startNanos) {
+            this.region = region;
+            this.phase = phase;
+            this.startNanos = startNanos;
+        }
+
+        public void stop() {
+            TIMERS.computeIfAbsent(region, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(phase, key -> new TimerStat())
+                .record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 阶段耗时统计
+     */
+    private static class TimerStat {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        void merge(TimerStat other) {
+            count.add(other.count.sum());
+            totalNanos.add(other.totalNanos.sum());
+            maxNanos.accumulate(other.maxNanos.get());
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("count", count.sum());
+            json.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()));
+            json.put("maxMillis", TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+            return json;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.wdbyte.bing.schedule;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.wdbyte.bing.RegionContext;
+
+/**
+ * 更新一个地区：获取接口、写入归档并增量生成该地区的页面
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+@FunctionalInterface
+public interface RegionUpdater {
+
+    /**
+     * @param context
+     * @return 更新后归档中最新图片的日期，没有获取到图片时返回 null
+     * @throws IOException
+     */
+    LocalDate update(RegionContext context) throws IOException;
+}
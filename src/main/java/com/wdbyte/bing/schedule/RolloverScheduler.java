@@ -0,0 +1,313 @@
+package com.wdbyte.bing.schedule;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.Wallpaper;
+import com.wdbyte.bing.metrics.Metrics;
+import com.wdbyte.bing.store.ArchiveSession;
+
+/**
+ * 常驻调度：在每个地区自己的换图时间获取壁纸，只增量生成该地区
+ * <p>
+ * 必应各地区在当地零点换图。启动时每个地区先更新一次，之后在当地零点加上 rolloverDelay 时获取；
+ * 归档中最新图片的日期（接口的 enddate，比当地展示日期晚一天）还没有到当地当天的下一天时，
+ * 按指数退避加随机抖动重试，超过 retryWindow 后放弃，等下一次换图。
+ * 获取失败（网络错误等）和没有新图片一样处理。
+ * <p>
+ * 所有地区在同一个线程中按时间顺序执行，各地区换图时间相差数小时，不会互相等待太久；
+ * 时间来自注入的 {@link Clock} 和 {@link Sleeper}，配合模拟时钟和 {@link com.wdbyte.bing.HttpUtls#setHttpClient}
+ * 替换的接口可以确定性地测试。每次更新后输出一次运行指标，计数从启动开始累计。
+ * <p>
+ * 系统属性：
+ * bing.daemon.rolloverDelay 换图后等待多久再获取，毫秒，默认 2 分钟；
+ * bing.daemon.retryDelay 首次重试间隔，毫秒，默认 5 分钟，之后每次翻倍；
+ * bing.daemon.maxRetryDelay 最大重试间隔，毫秒，默认 1 小时；
+ * bing.daemon.retryWindow 换图后最多重试多久，毫秒，默认 6 小时；
+ * bing.daemon.zone.{地区} 覆盖地区的换图时区，如 -Dbing.daemon.zone.en-us=America/New_York。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class RolloverScheduler {
+
+    /**
+     * 重试间隔的随机抖动比例，实际间隔在 [1 - JITTER, 1 + JITTER] 倍之间
+     */
+    private static final double JITTER = 0.2;
+
+    /**
+     * 地区 -> 换图时区，未列出的地区使用 UTC
+     */
+    private static final Map<String, ZoneId> ZONES = new HashMap<>();
+
+    static {
+        ZONES.put("en-us", ZoneId.of("America/Los_Angeles"));
+        ZONES.put("zh-cn", ZoneId.of("Asia/Shanghai"));
+        ZONES.put("ja-jp", ZoneId.of("Asia/Tokyo"));
+        ZONES.put("en-in", ZoneId.of("Asia/Kolkata"));
+        ZONES.put("pt-br", ZoneId.of("America/Sao_Paulo"));
+        ZONES.put("fr-fr", ZoneId.of("Europe/Paris"));
+        ZONES.put("de-de", ZoneId.of("Europe/Berlin"));
+        ZONES.put("en-ca", ZoneId.of("America/Toronto"));
+        ZONES.put("en-gb", ZoneId.of("Europe/London"));
+        ZONES.put("it-it", ZoneId.of("Europe/Rome"));
+        ZONES.put("es-es", ZoneId.of("Europe/Madrid"));
+        ZONES.put("fr-ca", ZoneId.of("America/Toronto"));
+    }
+
+    private final Clock clock;
+    private final Sleeper sleeper;
+    private final RegionUpdater updater;
+    private final Random random;
+    private final Duration rolloverDelay;
+    private final Duration retryDelay;
+    private final Duration maxRetryDelay;
+    private final Duration retryWindow;
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<>(
+        Comparator.comparing((Task task) -> task.due).thenComparing(task -> task.context.getRegion()));
+
+    public RolloverScheduler(Clock clock, Sleeper sleeper, RegionUpdater updater, Random random,
+        Duration rolloverDelay, Duration retryDelay, Duration maxRetryDelay, Duration retryWindow) {
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.updater = updater;
+        this.random = random;
+        this.rolloverDelay = rolloverDelay;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.retryWindow = retryWindow;
+    }
+
+    /**
+     * 使用系统时钟、{@link Wallpaper#updateRegion(RegionContext)} 和系统属性中的配置
+     *
+     * @return
+     */
+    public static RolloverScheduler create() {
+        Clock clock = Clock.systemUTC();
+        return new RolloverScheduler(clock, Sleeper.system(clock), RolloverScheduler::updateRegion, new Random(),
+            Duration.ofMillis(Long.getLong("bing.daemon.rolloverDelay", 120_000L)),
+            Duration.ofMillis(Long.getLong("bing.daemon.retryDelay", 300_000L)),
+            Duration.ofMillis(Long.getLong("bing.daemon.maxRetryDelay", 3_600_000L)),
+            Duration.ofMillis(Long.getLong("bing.daemon.retryWindow", 21_600_000L)));
+    }
+
+    /**
+     * 地区的换图时区
+     *
+     * @param region
+     * @return
+     */
+    public static ZoneId getZone(String region) {
+        String zone = System.getProperty("bing.daemon.zone." + region);
+        if (zone != null) {
+            return ZoneId.of(zone);
+        }
+        return ZONES.getOrDefault(region, ZoneId.of("UTC"));
+    }
+
+    /**
+     * 加入地区，立即更新一次
+     *
+     * @param context
+     */
+    public void add(RegionContext context) {
+        ZoneId zone = getZone(context.getRegion());
+        Instant now = clock.instant();
+        queue.add(new Task(context, zone, now, getExpectedDate(LocalDate.from(now.atZone(zone))), now.plus(retryWindow),
+            0));
+    }
+
+    /**
+     * 持续运行，直到线程被中断
+     */
+    public void run() {
+        runUntil(Instant.MAX);
+    }
+
+    /**
+     * 依次执行到期的任务，下一个任务晚于 end 或者线程被中断时返回
+     *
+     * @param end
+     */
+    public void runUntil(Instant end) {
+        LogUtils.log("scheduler started,regions:%d", queue.size());
+        while (!queue.isEmpty() && !queue.peek().due.isAfter(end)) {
+            Task task = queue.poll();
+            try {
+                sleeper.sleepUntil(task.due);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.add(task);
+                LogUtils.log("scheduler interrupted");
+                return;
+            }
+            queue.add(execute(task));
+            writeMetricsReport();
+        }
+    }
+
+    /**
+     * 执行一次更新，返回同一地区的下一个任务
+     */
+    Task execute(Task task) {
+        String region = task.context.getRegion();
+        LocalDate latest = null;
+        Metrics.setRegion(region);
+        try {
+            latest = Metrics.time("region", () -> updater.update(task.context));
+        } catch (IOException | RuntimeException e) {
+            LogUtils.log("scheduled update failed,region:%s,attempt:%d,reason:%s", region, task.attempt + 1, e);
+        } finally {
+            Metrics.setRegion(null);
+        }
+
+        Instant now = clock.instant();
+        if (latest != null && !latest.isBefore(task.expected)) {
+            Task next = nextRollover(task.context, task.zone, now);
+            LogUtils.log("scheduled update finished,region:%s,date:%s,attempts:%d,next:%s", region, latest,
+                task.attempt + 1, next.due);
+            return next;
+        }
+        Instant retry = now.plus(getRetryDelay(task.attempt));
+        if (retry.isAfter(task.deadline)) {
+            Task next = nextRollover(task.context, task.zone, now);
+            LogUtils.log("scheduled update gave up,region:%s,expected:%s,latest:%s,attempts:%d,next:%s", region,
+                task.expected, latest, task.attempt + 1, next.due);
+            return next;
+        }
+        Metrics.setRegion(region);
+        Metrics.increment("schedule.retries");
+        Metrics.setRegion(null);
+        LogUtils.log("scheduled update retry,region:%s,expected:%s,latest:%s,attempt:%d,retry:%s", region,
+            task.expected, latest, task.attempt + 1, retry);
+        return new Task(task.context, task.zone, retry, task.expected, task.deadline, task.attempt + 1);
+    }
+
+    /**
+     * 当地下一个零点之后的第一次获取
+     */
+    Task nextRollover(RegionContext context, ZoneId zone, Instant now) {
+        LocalDate date = LocalDate.from(now.atZone(zone));
+        ZonedDateTime due = date.atStartOfDay(zone).plus(rolloverDelay);
+        if (!due.toInstant().isAfter(now)) {
+            date = date.plusDays(1);
+            due = date.atStartOfDay(zone).plus(rolloverDelay);
+        }
+        Instant dueInstant = due.toInstant();
+        return new Task(context, zone, dueInstant, getExpectedDate(date), dueInstant.plus(retryWindow), 0);
+    }
+
+    /**
+     * 当地日期 date 换图后归档中应该出现的日期
+     * <p>
+     * 归档日期取自接口的 enddate，比图片在当地展示的日期晚一天（startdate 20260822 的 enddate 为 20260823），
+     * 当地零点刚过时归档中已经有日期为当天的图片，要等到 date + 1 出现才说明已经换图。
+     */
+    static LocalDate getExpectedDate(LocalDate date) {
+        return date.plusDays(1);
+    }
+
+    /**
+     * 第 attempt 次重试前的等待时间，指数退避加随机抖动
+     */
+    Duration getRetryDelay(int attempt) {
+        long millis = retryDelay.toMillis() << Math.min(attempt, 20);
+        millis = Math.min(millis, maxRetryDelay.toMillis());
+        double jitter = 1 - JITTER + 2 * JITTER * random.nextDouble();
+        return Duration.ofMillis(Math.max(1, (long)(millis * jitter)));
+    }
+
+    /**
+     * 已排期的任务，按到期时间排序
+     *
+     * @return
+     */
+    public List<Task> getTasks() {
+        List<Task> tasks = new ArrayList<>(queue);
+        tasks.sort(queue.comparator());
+        return tasks;
+    }
+
+    private static LocalDate updateRegion(RegionContext context) throws IOException {
+        ArchiveSession session = Wallpaper.updateRegion(context);
+        if (session == null || session.getImages().isEmpty()) {
+            return null;
+        }
+        Images latest = session.getImages().get(0);
+        return LocalDate.ofEpochDay(latest.getEpochDay());
+    }
+
+    private static void writeMetricsReport() {
+        try {
+            Metrics.writeReport();
+        } catch (IOException e) {
+            LogUtils.log("write metrics report failed,reason:%s", e);
+        }
+    }
+
+    /**
+     * 一个地区的下一次获取
+     */
+    public static class Task {
+        private final RegionContext context;
+        private final ZoneId zone;
+        private final Instant due;
+        /**
+         * 期望归档中出现的日期，即换图后当地日期的下一天（enddate）
+         */
+        private final LocalDate expected;
+        /**
+         * 超过这个时间不再重试
+         */
+        private final Instant deadline;
+        private final int attempt;
+
+        Task(RegionContext context, ZoneId zone, Instant due, LocalDate expected, Instant deadline, int attempt) {
+            this.context = context;
+            this.zone = zone;
+            this.due = due;
+            this.expected = expected;
+            this.deadline = deadline;
+            this.attempt = attempt;
+        }
+
+        public String getRegion() {
+            return context.getRegion();
+        }
+
+        public Instant getDue() {
+            return due;
+        }
+
+        public LocalDate getExpected() {
+            return expected;
+        }
+
+        public int getAttempt() {
+            return attempt;
+        }
+
+        @Override
+        public String toString() {
+            return context.getRegion() + "@" + due + "(" + expected + "," + attempt + ")";
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.wdbyte.bing.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 等待到指定时刻，和 {@link Clock} 一起注入调度器；测试时可以直接把模拟时钟拨到目标时刻
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+@FunctionalInterface
+public interface Sleeper {
+
+    /**
+     * 单次休眠的最长时间，系统休眠或者时钟调整后最多这么久就能重新对齐
+     */
+    Duration MAX_SLEEP = Duration.ofMinutes(1);
+
+    void sleepUntil(Instant deadline) throws InterruptedException;
+
+    /**
+     * 按给定时钟真实休眠
+     *
+     * @param clock
+     * @return
+     */
+    static Sleeper system(Clock clock) {
+        return deadline -> {
+            Duration remaining;
+            while (!(remaining = Duration.between(clock.instant(), deadline)).isNegative() && !remaining.isZero()) {
+                Thread.sleep(Math.max(1, Math.min(remaining.toMillis(), MAX_SLEEP.toMillis())));
+            }
+        };
+    }
+}
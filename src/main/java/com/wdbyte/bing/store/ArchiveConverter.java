@@ -0,0 +1,31 @@
+package com.wdbyte.bing.store;
+
+import java.io.IOException;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.Wallpaper;
+
+/**
+ * 把 bing-wallpaper.md 转换为二进制归档
+ * <p>
+ * 读取归档时会自动转换，这里用于一次性转换所有地区，例如手动编辑 markdown 之后。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ArchiveConverter {
+
+    /**
+     * 启动参数可以指定需要转换的地区，不指定时使用默认地区列表
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        String[] regions = args.length > 0 ? args : Wallpaper.getDefaultRegions();
+        for (String region : regions) {
+            BingFileUtils.getBingArchive(RegionContext.of(region)).convert();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.wdbyte.bing.store;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+
+/**
+ * 一个地区归档的只读视图，一次地区处理中只读取一次归档
+ * <p>
+ * 读取后一次性建立图片列表、月度分组和月份列表，README、月度 markdown、网站页面和 images.json 共用同一个实例，
+ * 不再各自读取归档、过滤和分组。归档由 {@link MarkdownArchive} 维护为日期倒序，这里保持文件中的顺序。
+ * <p>
+ * 所有集合都不可修改；归档更新后需要重新 {@link #load(RegionContext)}。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ArchiveSession {
+
+    private final RegionContext context;
+    /**
+     * 归档中的全部记录
+     */
+    private final List<Images> images;
+    /**
+     * 有图片地址的记录，用于生成网站
+     */
+    private final List<Images> webImages;
+    /**
+     * 月份 -> 该月有图片地址的记录，月份按日期倒序
+     */
+    private final Map<String, List<Images>> monthMap;
+    /**
+     * 全部记录的月份，按日期倒序
+     */
+    private final List<String> months;
+
+    private ArchiveSession(RegionContext context, List<Images> images) {
+        this.context = context;
+        this.images = Collections.unmodifiableList(new ArrayList<>(images));
+        List<Images> webImages = new ArrayList<>(images.size());
+        Set<String> months = new LinkedHashSet<>();
+        for (Images image : images) {
+            months.add(image.getMonth());
+            if (image.getUrl() != null) {
+                webImages.add(image);
+            }
+        }
+        this.webImages = Collections.unmodifiableList(webImages);
+        this.months = Collections.unmodifiableList(new ArrayList<>(months));
+        Map<String, List<Images>> monthMap = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Images>> entry : BingFileUtils.convertImgListToMonthMap(webImages).entrySet()) {
+            monthMap.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        this.monthMap = Collections.unmodifiableMap(monthMap);
+    }
+
+    /**
+     * 读取地区归档
+     *
+     * @param context
+     * @return
+     * @throws IOException
+     */
+    public static ArchiveSession load(RegionContext context) throws IOException {
+        return new ArchiveSession(context, BingFileUtils.readBing(context));
+    }
+
+    /**
+     * 使用已经在内存中的记录，记录需要按日期倒序排列
+     *
+     * @param context
+     * @param images
+     * @return
+     */
+    public static ArchiveSession of(RegionContext context, List<Images> images) {
+        return new ArchiveSession(context, images);
+    }
+
+    public RegionContext getContext() {
+        return context;
+    }
+
+    public String getRegion() {
+        return context.getRegion();
+    }
+
+    public List<Images> getImages() {
+        return images;
+    }
+
+    public List<Images> getWebImages() {
+        return webImages;
+    }
+
+    public Map<String, List<Images>> getMonthMap() {
+        return monthMap;
+    }
+
+    public List<String> getMonths() {
+        return months;
+    }
+}
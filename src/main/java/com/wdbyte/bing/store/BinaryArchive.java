@@ -0,0 +1,422 @@
+package com.wdbyte.bing.store;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.Images;
+
+/**
+ * 列式二进制归档
+ * <p>
+ * 与 bing-wallpaper.md 保存相同的记录和顺序，读取时通过内存映射直接扫描，不再逐行解析文本。文件结构：
+ * <pre>
+ * 文件头   magic、版本、来源 markdown 的长度、修改时间和 CRC32、标志位、记录数
+ * 字典     URL 公共前缀（如 https://cn.bing.com/th?id=）和公共后缀（如 &amp;rf=LaDigue_UHD.jpg&amp;pid=hp...），长度前缀 UTF-8
+ * 日期列   int[记录数]，epoch day
+ * 前缀列   short[记录数]，字典下标
+ * 后缀列   short[记录数]，字典下标
+ * 偏移列   int[记录数]，记录在字符串区中的偏移
+ * 字符串区 每条记录的 URL 中间部分和图片说明，均为 2 字节长度前缀的 UTF-8，说明为 null 时长度为 0xFFFF
+ * </pre>
+ * 日期按倒序排列时设置 SORTED 标志，按日期查找时对日期列二分。
+ * <p>
+ * 二进制归档保存在本地缓存目录，GitHub Actions 上通过 workflow 中的 actions/cache 在两次运行之间保留。
+ * 全新检出的 markdown 修改时间总是变化，因此修改时间不一致时再比较内容的 CRC32，内容相同就继续使用，
+ * 只有缓存缺失或者 markdown 内容确实变化时才重新转换。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class BinaryArchive {
+
+    private static final int MAGIC = 0x42575041;
+    private static final int VERSION = 2;
+    private static final int FLAG_SORTED = 1;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final String ID_PARAM = "?id=";
+
+    private final ByteBuffer buffer;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long sourceChecksum;
+    /**
+     * 已经通过 CRC32 确认内容一致的 markdown 修改时间，避免每次检查都重新计算
+     */
+    private long verifiedModified;
+    private final boolean sorted;
+    private final int count;
+    private final String[] dictionary;
+    private final int dateStart;
+    private final int prefixStart;
+    private final int suffixStart;
+    private final int offsetStart;
+    private final int heapStart;
+
+    private BinaryArchive(ByteBuffer buffer) {
+        this.buffer = buffer;
+        buffer.position(8);
+        this.sourceSize = buffer.getLong();
+        this.sourceModified = buffer.getLong();
+        this.sourceChecksum = buffer.getLong();
+        this.verifiedModified = sourceModified;
+        this.sorted = (buffer.getInt() & FLAG_SORTED) != 0;
+        this.count = buffer.getInt();
+        int dictionarySize = buffer.getInt();
+        // 每条记录至少占 16 字节，每个字典项至少占 2 字节，超出时文件已损坏，避免按损坏的长度分配内存
+        if (count < 0 || (long)count * 16 > buffer.limit() || dictionarySize < 0
+            || (long)dictionarySize * 2 > buffer.limit()) {
+            throw new IllegalStateException("corrupt binary archive header,count:" + count);
+        }
+        this.dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = readString(buffer, buffer.position());
+            buffer.position(buffer.position() + 2 + (buffer.getShort(buffer.position()) & 0xFFFF));
+        }
+        this.dateStart = buffer.position();
+        this.prefixStart = dateStart + count * 4;
+        this.suffixStart = prefixStart + count * 2;
+        this.offsetStart = suffixStart + count * 2;
+        this.heapStart = offsetStart + count * 4 + 4;
+    }
+
+    /**
+     * 内存映射打开二进制归档，文件不存在、格式不对、内容损坏或者与来源 markdown 不一致时返回 null
+     *
+     * @param path
+     * @param sourcePath 来源 bing-wallpaper.md，为 null 时不检查
+     * @return
+     * @throws IOException
+     */
+    public static BinaryArchive open(Path path, Path sourcePath) throws IOException {
+        if (path == null || !Files.isRegularFile(path)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < 44) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return null;
+        }
+        BinaryArchive archive;
+        try {
+            archive = new BinaryArchive(buffer);
+            if (!archive.isValid()) {
+                return null;
+            }
+        } catch (RuntimeException e) {
+            // 截断或者损坏的文件，按过期处理，由调用方从 markdown 重新转换
+            return null;
+        }
+        if (sourcePath != null && !archive.isSourceOf(sourcePath)) {
+            return null;
+        }
+        return archive;
+    }
+
+    /**
+     * 是否由当前的 markdown 转换而来，比较 markdown 的长度和修改时间，修改时间不一致时再比较内容的 CRC32
+     *
+     * @param sourcePath
+     * @return
+     * @throws IOException
+     */
+    public boolean isSourceOf(Path sourcePath) throws IOException {
+        if (!Files.exists(sourcePath) || sourceSize != Files.size(sourcePath)) {
+            return false;
+        }
+        long modified = Files.getLastModifiedTime(sourcePath).toMillis();
+        if (modified == verifiedModified) {
+            return true;
+        }
+        if (sourceChecksum != checksum(sourcePath)) {
+            return false;
+        }
+        verifiedModified = modified;
+        return true;
+    }
+
+    /**
+     * 计算文件内容的 CRC32
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static long checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int length;
+            while ((length = in.read(bytes)) > 0) {
+                crc.update(bytes, 0, length);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 检查各列和字符串区都在文件范围内，读取记录时不会越界
+     */
+    private boolean isValid() {
+        int limit = buffer.limit();
+        if ((long)heapStart > limit) {
+            return false;
+        }
+        int heapSize = buffer.getInt(heapStart - 4);
+        if (heapSize < 0 || (long)heapStart + heapSize != limit) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if ((buffer.getShort(prefixStart + i * 2) & 0xFFFF) >= dictionary.length
+                || (buffer.getShort(suffixStart + i * 2) & 0xFFFF) >= dictionary.length) {
+                return false;
+            }
+            int offset = buffer.getInt(offsetStart + i * 4);
+            if (offset < 0 || offset > heapSize - 4) {
+                return false;
+            }
+            int idEnd = offset + 2 + stringLength(heapStart + offset);
+            if (idEnd > heapSize - 2 || idEnd + 2 + stringLength(heapStart + idEnd) > heapSize) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int stringLength(int position) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        return length == NULL_LENGTH ? 0 : length;
+    }
+
+    /**
+     * 写入二进制归档
+     *
+     * @param path
+     * @param imagesList     按 markdown 中的顺序
+     * @param sourceSize     来源 markdown 的长度
+     * @param sourceModified 来源 markdown 的修改时间
+     * @param sourceChecksum 来源 markdown 内容的 CRC32
+     * @throws IOException
+     */
+    public static void write(Path path, List<Images> imagesList, long sourceSize, long sourceModified,
+        long sourceChecksum) throws IOException {
+        int count = imagesList.size();
+        Map<String, Integer> dictionaryIndex = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] dates = new int[count];
+        int[] prefixes = new int[count];
+        int[] suffixes = new int[count];
+        int[] offsets = new int[count];
+        ByteArrayOutputStream heapBytes = new ByteArrayOutputStream(count * 128);
+        DataOutputStream heap = new DataOutputStream(heapBytes);
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            Images images = imagesList.get(i);
+            dates[i] = images.getEpochDay();
+            if (i > 0 && dates[i] > dates[i - 1]) {
+                sorted = false;
+            }
+            String url = images.getUrl();
+            int prefixEnd = prefixEnd(url);
+            int suffixStart = url.indexOf('&', prefixEnd);
+            if (suffixStart < 0) {
+                suffixStart = url.length();
+            }
+            prefixes[i] = intern(url.substring(0, prefixEnd), dictionary, dictionaryIndex);
+            suffixes[i] = intern(url.substring(suffixStart), dictionary, dictionaryIndex);
+            offsets[i] = heap.size();
+            writeString(heap, url.substring(prefixEnd, suffixStart));
+            writeString(heap, images.getDesc());
+        }
+        if (dictionary.size() > NULL_LENGTH) {
+            throw new IOException("too many distinct url prefixes:" + dictionary.size());
+        }
+
+        Path tempPath = FileWriteUtils.createTempFile(path);
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tempPath), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeLong(sourceChecksum);
+            out.writeInt(sorted ? FLAG_SORTED : 0);
+            out.writeInt(count);
+            out.writeInt(dictionary.size());
+            for (String entry : dictionary) {
+                writeString(out, entry);
+            }
+            for (int date : dates) {
+                out.writeInt(date);
+            }
+            for (int prefix : prefixes) {
+                out.writeShort(prefix);
+            }
+            for (int suffix : suffixes) {
+                out.writeShort(suffix);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            out.writeInt(heap.size());
+            heapBytes.writeTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        FileWriteUtils.replace(tempPath, path);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 第 index 条记录的日期
+     *
+     * @param index
+     * @return epoch day
+     */
+    public int getEpochDay(int index) {
+        return buffer.getInt(dateStart + index * 4);
+    }
+
+    /**
+     * 读取第 index 条记录
+     *
+     * @param index
+     * @return
+     */
+    public Images get(int index) {
+        int offset = heapStart + buffer.getInt(offsetStart + index * 4);
+        String id = readString(buffer, offset);
+        String desc = readString(buffer, offset + 2 + (buffer.getShort(offset) & 0xFFFF));
+        String prefix = dictionary[buffer.getShort(prefixStart + index * 2) & 0xFFFF];
+        String suffix = dictionary[buffer.getShort(suffixStart + index * 2) & 0xFFFF];
+        return Images.builder().desc(desc).epochDay(getEpochDay(index)).url(prefix + id + suffix).build();
+    }
+
+    /**
+     * 按顺序逐条读取记录，只在消费时解码
+     *
+     * @return
+     */
+    public Stream<Images> stream() {
+        return IntStream.range(0, count).mapToObj(this::get);
+    }
+
+    public List<Images> readAll() {
+        List<Images> imagesList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            imagesList.add(get(i));
+        }
+        return imagesList;
+    }
+
+    /**
+     * 查找指定日期的所有记录，保持归档中的顺序
+     *
+     * @param date yyyy-MM-dd
+     * @return
+     */
+    public List<Images> find(String date) {
+        int epochDay = (int)LocalDate.parse(date).toEpochDay();
+        if (!sorted) {
+            List<Images> result = new ArrayList<>(1);
+            for (int i = 0; i < count; i++) {
+                if (getEpochDay(i) == epochDay) {
+                    result.add(get(i));
+                }
+            }
+            return result;
+        }
+        // 日期倒序，找到第一条不晚于 epochDay 的记录
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getEpochDay(mid) > epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == count || getEpochDay(low) != epochDay) {
+            return Collections.emptyList();
+        }
+        List<Images> result = new ArrayList<>(1);
+        for (int i = low; i < count && getEpochDay(i) == epochDay; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    /**
+     * URL 公共前缀的结束位置：有 ?id= 时截到 ?id= 之后，否则截到最后一个 / 之后
+     */
+    private static int prefixEnd(String url) {
+        int id = url.indexOf(ID_PARAM);
+        if (id >= 0) {
+            return id + ID_PARAM.length();
+        }
+        return url.lastIndexOf('/') + 1;
+    }
+
+    private static int intern(String value, List<String> dictionary, Map<String, Integer> dictionaryIndex) {
+        Integer index = dictionaryIndex.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.add(value);
+            dictionaryIndex.put(value, index);
+        }
+        return index;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IOException("string too long for binary archive:" + bytes.length);
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset + 2);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,264 @@
+package com.wdbyte.bing.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.wdbyte.bing.FileWriteUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.LogUtils;
+
+/**
+ * bing-wallpaper.md 存储
+ * <p>
+ * 归档文件按日期倒序保存，每条记录一行。markdown 是提交到仓库中的数据，旁边维护一份 {@link BinaryArchive}，
+ * 读取和按日期查找都通过内存映射扫描二进制归档，二进制归档的日期列和偏移列承担按日期定位的索引，不再单独维护索引文件。
+ * <p>
+ * 写入时最常见的情况是新的日期都不早于归档中最新的一条，此时只渲染新记录，写在标题之后，
+ * 原有内容按字节原样拷贝，一次缓冲写入完成，不重新渲染已有记录；回填等需要插入到中间的情况，
+ * 按日期合并后从记录列表重新渲染整个 markdown。两种情况都同步写出完整的二进制归档。
+ * <p>
+ * 二进制归档记录了 markdown 的长度、修改时间和 CRC32，内容不一致时（例如手动编辑过 markdown）自动从 markdown 重新转换。
+ * 二进制归档位于本地缓存目录 {@link com.wdbyte.bing.RegionContext#getBingBinaryPath()}，
+ * GitHub Actions 上依赖 workflow 中的 actions/cache 保留，缓存缺失时每次运行都会从 markdown 转换一次。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class MarkdownArchive {
+
+    private static final String TITLE = "## Bing Wallpaper";
+
+    private final Path bingPath;
+    private final Path binaryPath;
+    /**
+     * 当前 markdown 对应的二进制归档，按需加载
+     */
+    private BinaryArchive binary;
+
+    public MarkdownArchive(Path bingPath, Path binaryPath) {
+        this.bingPath = bingPath;
+        this.binaryPath = binaryPath;
+    }
+
+    /**
+     * 按文件顺序惰性读取所有记录，在内存映射的二进制归档上逐条解码
+     *
+     * @return
+     * @throws IOException
+     */
+    public Stream<Images> stream() throws IOException {
+        return loadBinary().stream();
+    }
+
+    public List<Images> readAll() throws IOException {
+        return loadBinary().readAll();
+    }
+
+    /**
+     * 通过二进制归档的日期列查找指定日期的所有记录，不解析整个文件
+     *
+     * @param date yyyy-MM-dd
+     * @return
+     * @throws IOException
+     */
+    public List<Images> find(String date) throws IOException {
+        return loadBinary().find(date);
+    }
+
+    public boolean contains(Images images) throws IOException {
+        return find(images.getDate()).contains(images);
+    }
+
+    /**
+     * 插入新的记录，已经存在的记录会被忽略
+     *
+     * @param imagesList
+     * @return 实际插入的记录数
+     * @throws IOException
+     */
+    public int insert(List<Images> imagesList) throws IOException {
+        List<Images> newImages = new ArrayList<>();
+        for (Images images : imagesList) {
+            if (!newImages.contains(images) && !contains(images)) {
+                newImages.add(images);
+            }
+        }
+        if (newImages.isEmpty()) {
+            return 0;
+        }
+        newImages.sort(Comparator.comparingInt(Images::getEpochDay).reversed());
+
+        BinaryArchive current = loadBinary();
+        if (current.size() > 0 && newImages.get(newImages.size() - 1).getEpochDay() >= current.getEpochDay(0)) {
+            prepend(newImages, current);
+            LogUtils.log("prepend bing wallpaper,path:%s,insert:%d,size:%d", bingPath.toString(), newImages.size(),
+                current.size() + newImages.size());
+            return newImages.size();
+        }
+
+        List<Images> oldImages = current.readAll();
+        List<Images> merged = new ArrayList<>(oldImages.size() + newImages.size());
+        int next = 0;
+        for (Images old : oldImages) {
+            // 日期不早于当前记录的新记录写在当前记录前面
+            while (next < newImages.size() && newImages.get(next).getEpochDay() >= old.getEpochDay()) {
+                merged.add(newImages.get(next++));
+            }
+            merged.add(old);
+        }
+        merged.addAll(newImages.subList(next, newImages.size()));
+        rewrite(merged);
+        LogUtils.log("insert bing wallpaper,path:%s,insert:%d,size:%d", bingPath.toString(), newImages.size(),
+            merged.size());
+        return newImages.size();
+    }
+
+    /**
+     * 把新记录写在标题之后，原有内容按字节拷贝，不重新渲染
+     *
+     * @param newImages 按日期倒序，都不早于归档中的第一条记录
+     * @param current   当前的二进制归档
+     * @throws IOException
+     */
+    private void prepend(List<Images> newImages, BinaryArchive current) throws IOException {
+        Path tempPath = FileWriteUtils.createTempFile(bingPath);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(bingPath), 64 * 1024);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath), 64 * 1024)) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                out.write(b);
+                if (b == '\n') {
+                    break;
+                }
+            }
+            String separator = System.lineSeparator();
+            for (Images images : newImages) {
+                out.write((images.formatMarkdown() + separator + separator).getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] bytes = new byte[64 * 1024];
+            int length;
+            while ((length = in.read(bytes)) > 0) {
+                out.write(bytes, 0, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        FileWriteUtils.replace(tempPath, bingPath);
+        List<Images> imagesList = new ArrayList<>(newImages.size() + current.size());
+        imagesList.addAll(newImages);
+        imagesList.addAll(current.readAll());
+        writeBinary(imagesList);
+    }
+
+    /**
+     * 使用给定的记录重写 markdown 和二进制归档
+     *
+     * @param imagesList
+     * @throws IOException
+     */
+    public void rewrite(List<Images> imagesList) throws IOException {
+        createIfNotExists();
+        Path tempPath = FileWriteUtils.createTempFile(bingPath);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath), 64 * 1024)) {
+            String separator = System.lineSeparator();
+            out.write((TITLE + separator).getBytes(StandardCharsets.UTF_8));
+            for (Images images : imagesList) {
+                out.write((images.formatMarkdown() + separator + separator).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        FileWriteUtils.replace(tempPath, bingPath);
+        writeBinary(imagesList);
+    }
+
+    /**
+     * 从 markdown 重新生成二进制归档
+     *
+     * @return 记录数
+     * @throws IOException
+     */
+    public int convert() throws IOException {
+        createIfNotExists();
+        List<Images> imagesList = parseMarkdown();
+        writeBinary(imagesList);
+        LogUtils.log("convert bing wallpaper to binary archive,path:%s,size:%d", binaryPath.toString(),
+            imagesList.size());
+        return imagesList.size();
+    }
+
+    /**
+     * 解析归档文件中的一行
+     *
+     * @param line
+     * @return
+     */
+    public static Images parse(String line) {
+        String s = line.trim();
+        int descEnd = s.indexOf("]");
+        int urlStart = s.lastIndexOf("(") + 1;
+
+        String date = s.substring(0, 10);
+        String desc = s.substring(14, descEnd);
+        String url = s.substring(urlStart, s.length() - 1);
+        return new Images(desc, date, url);
+    }
+
+    private void createIfNotExists() throws IOException {
+        if (!Files.exists(bingPath)) {
+            Path parent = bingPath.toAbsolutePath().getParent();
+            if (!Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+            Files.createFile(bingPath);
+        }
+    }
+
+    /**
+     * 加载二进制归档，不存在、已损坏或者 markdown 被修改过时从 markdown 重新生成；
+     * 已加载的归档每次使用前都重新检查 markdown 的长度和修改时间，修改时间变化时再比较 CRC32
+     */
+    private BinaryArchive loadBinary() throws IOException {
+        createIfNotExists();
+        if (binary != null && !binary.isSourceOf(bingPath)) {
+            binary = null;
+        }
+        if (binary == null) {
+            binary = BinaryArchive.open(binaryPath, bingPath);
+        }
+        if (binary == null) {
+            convert();
+        }
+        return binary;
+    }
+
+    private void writeBinary(List<Images> imagesList) throws IOException {
+        BinaryArchive.write(binaryPath, imagesList, Files.size(bingPath),
+            Files.getLastModifiedTime(bingPath).toMillis(), BinaryArchive.checksum(bingPath));
+        binary = BinaryArchive.open(binaryPath, null);
+    }
+
+    private List<Images> parseMarkdown() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(bingPath, StandardCharsets.UTF_8)) {
+            return reader.lines()
+                .filter(s -> !s.isEmpty())
+                .skip(1)
+                .map(MarkdownArchive::parse)
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.wdbyte.bing.store;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+
+/**
+ * 跨地区的图片索引，按必应 OHR 编号把各地区的同一张照片归为一组
+ * <p>
+ * 同一张照片在各地区的地址只有地区代码和后面的数字不同，如 OHR.CommonBlue_EN-US2760688799_UHD.jpg 和
+ * OHR.CommonBlue_ZH-CN...，说明和日期也可能不同。每组照片以地区列表中第一个有这张照片的地区为主地区：
+ * 详情页只在主地区生成，其他地区的卡片链接到主地区的详情页，原有的详情页改为跳转页；下载、缩略图和搜索也只处理主地区的记录。
+ * 同一地区不同日期重复出现的照片各自保留。
+ * <p>
+ * 地址中没有 OHR 编号的旧记录不参与分组，总是视为主地区。
+ * <p>
+ * 系统属性：bing.photos.dedupe 为 true 时网站、下载和缩略图按照片去重。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class PhotoIndex {
+
+    public static final String DEDUPE_PROPERTY = "bing.photos.dedupe";
+
+    private static final Pattern OHR_ID = Pattern.compile("OHR\\.([^_&./]+)_[A-Za-z]{2}-[A-Za-z]{2}");
+
+    /**
+     * 地区列表，顺序即主地区的优先级
+     */
+    private final List<String> regions;
+    /**
+     * OHR 编号 -> 地区 -> 该地区的记录（按日期倒序）
+     */
+    private final Map<String, Map<String, List<Images>>> photos;
+
+    private PhotoIndex(List<String> regions, Map<String, Map<String, List<Images>>> photos) {
+        this.regions = regions;
+        this.photos = photos;
+    }
+
+    /**
+     * 从已经读取的归档构建
+     *
+     * @param sessions 按主地区优先级排列
+     * @return
+     */
+    public static PhotoIndex build(List<ArchiveSession> sessions) {
+        List<String> regions = new ArrayList<>(sessions.size());
+        Map<String, Map<String, List<Images>>> photos = new HashMap<>();
+        for (ArchiveSession session : sessions) {
+            regions.add(session.getRegion());
+            for (Images images : session.getWebImages()) {
+                String id = getOhrId(images.getUrl());
+                if (id != null) {
+                    photos.computeIfAbsent(id, key -> new LinkedHashMap<>())
+                        .computeIfAbsent(session.getRegion(), key -> new ArrayList<>())
+                        .add(images);
+                }
+            }
+        }
+        return new PhotoIndex(Collections.unmodifiableList(regions), photos);
+    }
+
+    /**
+     * 读取各地区的归档并构建
+     *
+     * @param regions 按主地区优先级排列
+     * @return
+     * @throws IOException
+     */
+    public static PhotoIndex load(String... regions) throws IOException {
+        List<ArchiveSession> sessions = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            sessions.add(ArchiveSession.load(RegionContext.of(region)));
+        }
+        return build(sessions);
+    }
+
+    /**
+     * 从图片地址中解析 OHR 编号
+     *
+     * @param url
+     * @return 没有 OHR 编号时返回 null
+     */
+    public static String getOhrId(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = OHR_ID.matcher(url);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 照片的主地区
+     *
+     * @param region 图片所在地区
+     * @param images
+     * @return 不在索引中时返回 region 本身
+     */
+    public String getPrimaryRegion(String region, Images images) {
+        Map<String, List<Images>> variants = getVariantMap(images);
+        if (variants == null) {
+            return region;
+        }
+        for (String candidate : regions) {
+            if (variants.containsKey(candidate)) {
+                return candidate;
+            }
+        }
+        return region;
+    }
+
+    public boolean isPrimary(String region, Images images) {
+        return region.equals(getPrimaryRegion(region, images));
+    }
+
+    /**
+     * 主地区中对应的记录，有多条时取日期最接近的一条
+     *
+     * @param region 图片所在地区
+     * @param images
+     * @return 本身就是主地区时返回 images
+     */
+    public Images getPrimary(String region, Images images) {
+        String primaryRegion = getPrimaryRegion(region, images);
+        if (primaryRegion.equals(region)) {
+            return images;
+        }
+        return nearest(getVariantMap(images).get(primaryRegion), images);
+    }
+
+    /**
+     * 照片在其他地区的记录，按地区优先级排列，每个地区取日期最接近的一条
+     *
+     * @param region 图片所在地区
+     * @param images
+     * @return 地区 -> 记录
+     */
+    public Map<String, Images> getOtherVariants(String region, Images images) {
+        Map<String, List<Images>> variants = getVariantMap(images);
+        if (variants == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Images> others = new LinkedHashMap<>();
+        for (String candidate : regions) {
+            List<Images> list = variants.get(candidate);
+            if (list != null && !candidate.equals(region)) {
+                others.put(candidate, nearest(list, images));
+            }
+        }
+        return others;
+    }
+
+    /**
+     * 不同照片的数量
+     *
+     * @return
+     */
+    public int size() {
+        return photos.size();
+    }
+
+    public List<String> getRegions() {
+        return regions;
+    }
+
+    private Map<String, List<Images>> getVariantMap(Images images) {
+        String id = getOhrId(images.getUrl());
+        return id == null ? null : photos.get(id);
+    }
+
+    private static Images nearest(List<Images> candidates, Images images) {
+        Images nearest = candidates.get(0);
+        for (Images candidate : candidates) {
+            if (Math.abs(candidate.getEpochDay() - images.getEpochDay())
+                < Math.abs(nearest.getEpochDay() - images.getEpochDay())) {
+                nearest = candidate;
+            }
+        }
+        return nearest;
+    }
+}
@@ -0,0 +1,74 @@
+package com.wdbyte.bing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 原子写入和内容比较
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class FileWriteUtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void setUp() {
+        dir = folder.getRoot().toPath();
+    }
+
+    @Test
+    public void writesOnlyWhenChanged() throws IOException {
+        Path path = dir.resolve("sub/README.md");
+        assertTrue(FileWriteUtils.writeIfChanged(path, bytes("one")));
+        assertFalse(FileWriteUtils.writeIfChanged(path, bytes("one")));
+        assertTrue(FileWriteUtils.writeIfChanged(path, bytes("two")));
+        assertArrayEquals(bytes("two"), Files.readAllBytes(path));
+        try (Stream<Path> files = Files.list(path.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void newFilesAreWorldReadable() throws IOException {
+        assumeTrue(Files.getFileAttributeView(dir, PosixFileAttributeView.class) != null);
+        Path path = dir.resolve("index.html");
+        FileWriteUtils.writeAtomically(path, bytes("<html></html>"));
+        assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+    }
+
+    @Test
+    public void keepsExistingPermissions() throws IOException {
+        assumeTrue(Files.getFileAttributeView(dir, PosixFileAttributeView.class) != null);
+        Path path = dir.resolve("run.sh");
+        Files.write(path, bytes("old"));
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwxr-x---"));
+        FileWriteUtils.writeAtomically(path, bytes("new"));
+        assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+        assertArrayEquals(bytes("new"), Files.readAllBytes(path));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
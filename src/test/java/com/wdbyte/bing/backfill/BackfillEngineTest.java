@@ -0,0 +1,184 @@
+package com.wdbyte.bing.backfill;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.wdbyte.bing.BingFileUtils;
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import com.wdbyte.bing.http.HttpClient;
+import com.wdbyte.bing.http.HttpRequest;
+import com.wdbyte.bing.http.HttpResponse;
+import com.wdbyte.bing.http.RateLimiter;
+import com.wdbyte.bing.http.ResponseHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用合成的 en-us 接口响应回放补齐流程，响应不是真实录制的，只是与接口的格式一致
+ * <p>
+ * backfill/fixtures 是手工构造的每页 4 张的响应，覆盖去重和缺口：归档中原有 08-01、08-10、08-20；
+ * idx-0 返回 08-20 ~ 08-23，idx-4 重复返回 08-21 并带来 08-19、08-17、08-16，idx-8 只有重复的日期。
+ * <p>
+ * backfill/api 按真实接口的行为构造：每页最多返回 8 张（请求 9 张），idx 最大为 7，
+ * 更大的 idx 返回与 idx=7 相同的内容。idx-0 为 10-16 ~ 10-09，idx-7 为 10-09 ~ 10-02。
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class BackfillEngineTest {
+
+    /**
+     * 接口接受的最大 idx
+     */
+    private static final int MAX_API_IDX = 7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path fixtures;
+    private RegionContext context;
+    private final List<String> requested = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        fixtures = Paths.get(getClass().getResource("/backfill/fixtures").toURI());
+        File root = folder.getRoot();
+        context = new RegionContext("en-us", root.toPath().resolve("README.md"),
+            root.toPath().resolve("bing-wallpaper.md"), root.toPath().resolve("picture"),
+            root.toPath().resolve("docs"), root.toPath().resolve(".cache"));
+        BingFileUtils.writeBing(context, Arrays.asList(
+            image("2026-08-20", "Archived lighthouse"),
+            image("2026-08-10", "Archived meadow"),
+            image("2026-08-01", "Archived glacier")));
+    }
+
+    @Test
+    public void pagesUntilNoNewDates() throws IOException {
+        GapReport report = engine(4, null).backfillArchive(context).getReport();
+
+        assertEquals(Arrays.asList("idx=0", "idx=4", "idx=8"), requested);
+        assertEquals(7, report.getFetched());
+        assertEquals(6, report.getInserted());
+    }
+
+    @Test
+    public void mergesAndDeduplicatesDates() throws IOException {
+        BackfillEngine.Backfilled backfilled = engine(4, null).backfillArchive(context);
+
+        List<Images> archived = BingFileUtils.readBing(context);
+        assertEquals(Arrays.asList("2026-08-23", "2026-08-22", "2026-08-21", "2026-08-20", "2026-08-19",
+            "2026-08-17", "2026-08-16", "2026-08-10", "2026-08-01"), dates(archived));
+        assertEquals(dates(archived), dates(backfilled.getSession().getImages()));
+        // 同一日期以离今天最近的一页为准，归档中已有的日期不会被覆盖
+        assertTrue(archived.get(2).getDesc().startsWith("Desert wildflowers in bloom"));
+        assertEquals("Archived lighthouse", archived.get(3).getDesc());
+
+        // 再次补齐不会插入任何记录
+        assertEquals(0, engine(4, null).backfillArchive(context).getReport().getInserted());
+        assertEquals(9, BingFileUtils.readBing(context).size());
+    }
+
+    @Test
+    public void reportsGaps() throws IOException {
+        GapReport report = engine(4, null).backfillArchive(context).getReport();
+
+        assertEquals("2026-08-01", report.getFirstDate());
+        assertEquals("2026-08-23", report.getLastDate());
+        assertEquals(Arrays.asList("2026-08-02~2026-08-09", "2026-08-11~2026-08-15", "2026-08-18"),
+            report.getGaps());
+        assertEquals(14, report.getMissingDays());
+        assertTrue(Files.exists(context.getCacheRoot().resolve("backfill/en-us.json")));
+    }
+
+    @Test
+    public void stopsAtMaxPages() throws IOException {
+        GapReport report = engine(1, null).backfillArchive(context).getReport();
+
+        assertEquals(Arrays.asList("idx=0"), requested);
+        assertEquals(4, report.getFetched());
+        assertEquals(3, report.getInserted());
+        assertEquals(Arrays.asList("2026-08-02~2026-08-09", "2026-08-11~2026-08-19"), report.getGaps());
+    }
+
+    @Test
+    public void recordsResponses() throws IOException {
+        Path record = folder.newFolder("record").toPath();
+        engine(4, record).backfillArchive(context);
+
+        for (String page : Arrays.asList("idx-0.json", "idx-4.json", "idx-8.json")) {
+            assertArrayEquals(Files.readAllBytes(fixtures.resolve("en-us").resolve(page)),
+                Files.readAllBytes(record.resolve("en-us").resolve(page)));
+        }
+    }
+
+    @Test
+    public void pagesThroughEightImagePagesUntilIdxIsClamped() throws IOException, URISyntaxException {
+        Path api = Paths.get(getClass().getResource("/backfill/api").toURI());
+        GapReport report = engine(api, 10, null, true).backfillArchive(context).getReport();
+
+        // idx=8 被限制为 7，带来 10-08 ~ 10-02；idx=16 同样是 idx=7 的内容，没有新的日期，停止翻页
+        assertEquals(Arrays.asList("idx=0", "idx=8", "idx=16"), requested);
+        assertEquals(15, report.getFetched());
+        assertEquals(15, report.getInserted());
+        List<String> archived = dates(BingFileUtils.readBing(context));
+        assertEquals(18, archived.size());
+        assertEquals("2026-10-16", archived.get(0));
+        assertEquals("2026-10-02", archived.get(14));
+        assertEquals(Arrays.asList("2026-08-02~2026-08-09", "2026-08-11~2026-08-19", "2026-08-21~2026-10-01"),
+            report.getGaps());
+    }
+
+    private BackfillEngine engine(int maxPages, Path recordRoot) {
+        return engine(fixtures, maxPages, recordRoot, false);
+    }
+
+    /**
+     * @param clampIdx 按接口的行为把大于 7 的 idx 当作 7
+     */
+    private BackfillEngine engine(Path fixtureRoot, int maxPages, Path recordRoot, boolean clampIdx) {
+        HttpClient replay = new FixtureHttpClient(fixtureRoot);
+        HttpClient client = new HttpClient() {
+            @Override
+            public <T> HttpResponse<T> get(HttpRequest request, ResponseHandler<T> handler) throws IOException {
+                String url = request.getUrl();
+                int start = url.indexOf("idx=");
+                int end = url.indexOf('&', start);
+                requested.add(url.substring(start, end));
+                if (clampIdx) {
+                    int idx = Math.min(MAX_API_IDX, Integer.parseInt(url.substring(start + 4, end)));
+                    url = url.substring(0, start + 4) + idx + url.substring(end);
+                }
+                return replay.get(new HttpRequest(url), handler);
+            }
+        };
+        return new BackfillEngine(client, new RateLimiter(1000), maxPages, recordRoot);
+    }
+
+    private static Images image(String date, String desc) {
+        String id = date.replace("-", "");
+        return new Images(desc, date, "https://cn.bing.com/th?id=OHR.Archived" + id
+            + "_EN-US" + id + "_UHD.jpg&rf=LaDigue_UHD.jpg&pid=hp&w=3840&h=2160&rs=1&c=4");
+    }
+
+    private static List<String> dates(List<Images> images) {
+        List<String> dates = new ArrayList<>(images.size());
+        for (Images image : images) {
+            dates.add(image.getDate());
+        }
+        return dates;
+    }
+}
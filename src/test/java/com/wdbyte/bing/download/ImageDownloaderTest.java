@@ -0,0 +1,221 @@
+package com.wdbyte.bing.download;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wdbyte.bing.http.UrlConnectionHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 使用本地 HttpServer 作为图片服务测试续传、从头下载和按内容去重
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class ImageDownloaderTest {
+
+    private static final int IMAGE_SIZE = 200 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private ImageStore store;
+    private byte[] image;
+    /**
+     * 每个请求的 Range 请求头，没有时为空字符串
+     */
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws IOException {
+        image = new byte[IMAGE_SIZE];
+        new Random(20261016).nextBytes(image);
+        store = ImageStore.open(folder.newFolder("images").toPath());
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void resumesWithRange() throws IOException {
+        server.createContext("/th", this::serveRange);
+        String url = url("OHR.Resume_UHD.jpg");
+        int offset = 70_000;
+        writePartial(url, Arrays.copyOf(image, offset));
+
+        ImageDownloader.Report report = downloader().download(Collections.singletonList(url));
+
+        assertEquals(Collections.singletonList("bytes=" + offset + "-"), ranges);
+        assertEquals(1, report.getResumed());
+        assertEquals(1, report.getDownloaded());
+        assertEquals(IMAGE_SIZE - offset, report.getBytes());
+        assertStored(url);
+    }
+
+    @Test
+    public void restartsWhenServerIgnoresRange() throws IOException {
+        server.createContext("/th", exchange -> {
+            ranges.add(range(exchange));
+            send(exchange, 200, image);
+        });
+        String url = url("OHR.Restart_UHD.jpg");
+        writePartial(url, Arrays.copyOf(image, 50_000));
+
+        ImageDownloader.Report report = downloader().download(Collections.singletonList(url));
+
+        assertEquals(Collections.singletonList("bytes=50000-"), ranges);
+        assertEquals(0, report.getResumed());
+        assertEquals(IMAGE_SIZE, report.getBytes());
+        assertStored(url);
+    }
+
+    @Test
+    public void retriesFromScratchWhenResumeFails() throws IOException {
+        server.createContext("/th", exchange -> {
+            ranges.add(range(exchange));
+            if (!range(exchange).isEmpty()) {
+                send(exchange, 416, new byte[0]);
+            } else {
+                send(exchange, 200, image);
+            }
+        });
+        String url = url("OHR.Failed_UHD.jpg");
+        // 下载中文件比服务端的图片还大，续传必然失败
+        writePartial(url, new byte[IMAGE_SIZE + 1]);
+
+        ImageDownloader.Report report = downloader().download(Collections.singletonList(url));
+
+        assertEquals(Arrays.asList("bytes=" + (IMAGE_SIZE + 1) + "-", ""), ranges);
+        assertEquals(0, report.getFailed());
+        assertEquals(1, report.getDownloaded());
+        assertStored(url);
+    }
+
+    @Test
+    public void deduplicatesIdenticalContent() throws IOException {
+        server.createContext("/th", this::serveRange);
+        String en = url("OHR.Same_EN-US_UHD.jpg");
+        String zh = url("OHR.Same_ZH-CN_UHD.jpg");
+
+        ImageDownloader.Report report = downloader().download(Arrays.asList(en, zh));
+
+        assertEquals(1, report.getDownloaded());
+        assertEquals(1, report.getDeduplicated());
+        assertStored(en);
+        assertEquals(store.lookup(en), store.lookup(zh));
+        try (Stream<Path> objects = Files.walk(store.getRoot().resolve("objects"))) {
+            assertEquals(1, objects.filter(Files::isRegularFile).count());
+        }
+        try (Stream<Path> partials = Files.list(store.getRoot().resolve("partial"))) {
+            assertFalse(partials.findAny().isPresent());
+        }
+
+        // 重新打开存储后已下载的地址不再请求
+        ranges.clear();
+        store = ImageStore.open(store.getRoot());
+        ImageDownloader.Report again = downloader().download(Arrays.asList(en, zh));
+        assertEquals(2, again.getSkipped());
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test
+    public void reportsFailedUrls() throws IOException {
+        server.createContext("/th", exchange -> send(exchange, 404, new byte[0]));
+        String url = url("OHR.Missing_UHD.jpg");
+
+        ImageDownloader.Report report = downloader().download(Collections.singletonList(url));
+
+        assertEquals(1, report.getFailed());
+        assertNull(store.lookup(url));
+    }
+
+    private ImageDownloader downloader() {
+        return new ImageDownloader(new UrlConnectionHttpClient(2_000, 5_000, 0, 1), store, 2);
+    }
+
+    private String url(String id) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/th?id=" + id
+            + "&w=3840&h=2160";
+    }
+
+    private void writePartial(String url, byte[] content) throws IOException {
+        Path partial = store.getPartialPath(url);
+        Files.createDirectories(partial.getParent());
+        Files.write(partial, content);
+    }
+
+    private void assertStored(String url) throws IOException {
+        Path path = store.lookup(url);
+        assertArrayEquals(image, Files.readAllBytes(path));
+        assertEquals(sha256(image) + ".jpg", path.getFileName().toString());
+        assertFalse(Files.exists(store.getPartialPath(url)));
+    }
+
+    /**
+     * 支持 bytes={start}- 形式的 Range 请求
+     */
+    private void serveRange(HttpExchange exchange) throws IOException {
+        String range = range(exchange);
+        ranges.add(range);
+        if (range.isEmpty()) {
+            send(exchange, 200, image);
+            return;
+        }
+        int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (IMAGE_SIZE - 1) + "/" + IMAGE_SIZE);
+        send(exchange, 206, Arrays.copyOfRange(image, start, IMAGE_SIZE));
+    }
+
+    private static String range(HttpExchange exchange) {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        return range == null ? "" : range;
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
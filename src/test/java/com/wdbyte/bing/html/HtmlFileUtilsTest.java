@@ -0,0 +1,102 @@
+package com.wdbyte.bing.html;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 网站文件写入和预压缩
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class HtmlFileUtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path page;
+    private Path gzip;
+
+    @Before
+    public void setUp() {
+        page = folder.getRoot().toPath().resolve("index.html");
+        gzip = folder.getRoot().toPath().resolve("index.html.gz");
+        System.setProperty(HtmlFileUtils.PRECOMPRESS_PROPERTY, "true");
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(HtmlFileUtils.PRECOMPRESS_PROPERTY);
+    }
+
+    @Test
+    public void precompressesChangedFiles() throws IOException {
+        byte[] content = html(100);
+        assertTrue(HtmlFileUtils.writeIfChanged(page, content));
+        assertArrayEquals(content, gunzip(gzip));
+
+        byte[] changed = html(200);
+        assertTrue(HtmlFileUtils.writeIfChanged(page, changed));
+        assertArrayEquals(changed, gunzip(gzip));
+
+        // 内容没有变化时补上缺失的 .gz
+        Files.delete(gzip);
+        assertFalse(HtmlFileUtils.writeIfChanged(page, changed));
+        assertArrayEquals(changed, gunzip(gzip));
+    }
+
+    @Test
+    public void deletesGzipWhenFileBecomesSmall() throws IOException {
+        HtmlFileUtils.writeIfChanged(page, html(100));
+        assertTrue(Files.exists(gzip));
+
+        HtmlFileUtils.writeIfChanged(page, "<p>small</p>".getBytes(StandardCharsets.UTF_8));
+        assertFalse(Files.exists(gzip));
+    }
+
+    @Test
+    public void deletesGzipWhenPrecompressIsOff() throws IOException {
+        HtmlFileUtils.writeIfChanged(page, html(100));
+        System.clearProperty(HtmlFileUtils.PRECOMPRESS_PROPERTY);
+
+        // 内容没有变化时 .gz 仍然和页面一致，保留
+        HtmlFileUtils.writeIfChanged(page, html(100));
+        assertTrue(Files.exists(gzip));
+
+        HtmlFileUtils.writeIfChanged(page, html(200));
+        assertFalse(Files.exists(gzip));
+    }
+
+    private static byte[] html(int paragraphs) {
+        return ("<html>" + String.join("", Collections.nCopies(paragraphs, "<p>Bing Wallpaper</p>")) + "</html>")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(Path path) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            byte[] buffer = new byte[4 * 1024];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+        }
+        return out.toByteArray();
+    }
+}
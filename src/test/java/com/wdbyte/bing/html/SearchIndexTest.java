@@ -0,0 +1,105 @@
+package com.wdbyte.bing.html;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.wdbyte.bing.Images;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 搜索索引的增量更新：内容不变时不写文件，新增一天只改动涉及到的分片
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class SearchIndexTest {
+
+    private static final FileTime OLD_TIME = FileTime.fromMillis(0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+    private SearchIndex index;
+    private List<Images> imagesList;
+
+    @Before
+    public void setUp() {
+        root = folder.getRoot().toPath();
+        index = new SearchIndex(root);
+        imagesList = new ArrayList<>(Arrays.asList(
+            images("2026-10-15", "Autumn leaves in Kyoto, Japan"),
+            images("2026-10-14", "Lighthouse on the coast of Brittany, France"),
+            images("2025-12-31", "Fireworks over Sydney Harbour, Australia")));
+    }
+
+    @Test
+    public void unchangedRerunWritesNothing() throws IOException {
+        assertTrue(index.update("en-us", imagesList, false) > 0);
+        touchAll(OLD_TIME);
+
+        assertEquals(0, index.update("en-us", imagesList, false));
+        assertEquals(new TreeSet<String>(), modifiedFiles());
+    }
+
+    @Test
+    public void newDayRewritesOnlyTouchedShards() throws IOException {
+        index.update("en-us", imagesList, false);
+        touchAll(OLD_TIME);
+
+        Images newDay = images("2026-10-16", "Temple in Kyoto, Japan");
+        imagesList.add(0, newDay);
+        // 新文档的词所在的分片和当年的文档文件
+        Set<String> expected = new TreeSet<>();
+        expected.add("docs/en-us/2026.json");
+        for (String term : SearchTokenizer.tokenize(newDay.getDesc())) {
+            expected.add("shards/" + SearchTokenizer.shardOf(term) + ".json");
+        }
+        int written = index.update("en-us", imagesList, false);
+
+        Set<String> modified = modifiedFiles();
+        modified.remove(SearchIndex.INDEX_FILE_NAME);
+        assertEquals(expected, modified);
+        assertTrue(written >= expected.size());
+    }
+
+    private void touchAll(FileTime time) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path path : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Files.setLastModifiedTime(path, time);
+            }
+        }
+    }
+
+    private Set<String> modifiedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            Set<String> modified = new TreeSet<>();
+            for (Path path : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                if (!Files.getLastModifiedTime(path).equals(OLD_TIME)) {
+                    modified.add(root.relativize(path).toString().replace('\\', '/'));
+                }
+            }
+            return modified;
+        }
+    }
+
+    private static Images images(String date, String desc) {
+        return new Images(desc + " (© Getty Images)", date,
+            "https://cn.bing.com/th?id=OHR." + date.replace("-", "") + "_UHD.jpg&pid=hp");
+    }
+}
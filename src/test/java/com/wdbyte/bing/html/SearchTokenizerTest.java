@@ -0,0 +1,59 @@
+package com.wdbyte.bing.html;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 分词和分片的固定向量，docs/js/search.js 中的 tokenize 和 shardOf 对同样的输入必须得到同样的结果
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class SearchTokenizerTest {
+
+    @Test
+    public void latinWordsAreFoldedAndLowercased() {
+        assertTokens("Crème Brûlée in Paris, 2026",
+            "creme:60", "brulee:b5", "in:9e", "paris:8a", "2026:7f");
+        assertTokens("Ölüdeniz Beach, Türkiye (© Getty Images)",
+            "oludeniz:f6", "beach:80", "turkiye:e2", "getty:d9", "images:0b");
+    }
+
+    @Test
+    public void cjkRunsAreSplitIntoBigrams() {
+        assertTokens("北京的秋天", "北京:96", "京的:4b", "的秋:53", "秋天:0a");
+        assertTokens("富士山 Mt. Fuji", "富士:2b", "士山:6a", "mt:e4", "fuji:84");
+        assertTokens("서울 야경", "서울:9b", "야경:3b");
+        // 补充平面的汉字按一个字处理，分片按第一个字的两个 UTF-16 单元计算
+        assertTokens("𠮷野家", "𠮷野:b6", "野家:51");
+    }
+
+    @Test
+    public void singleCharacters() {
+        assertTokens("雪", "雪:fd");
+        assertTokens("a b c");
+        assertTokens(null);
+    }
+
+    @Test
+    public void tokensAreDeduplicatedInOrder() {
+        assertEquals(Arrays.asList("sea", "sky"), new ArrayList<>(SearchTokenizer.tokenize("Sea, sky, SEA")));
+    }
+
+    /**
+     * @param text
+     * @param expected 词:分片
+     */
+    private static void assertTokens(String text, String... expected) {
+        List<String> actual = new ArrayList<>();
+        for (String token : SearchTokenizer.tokenize(text)) {
+            actual.add(token + ":" + SearchTokenizer.shardOf(token));
+        }
+        assertEquals(Arrays.asList(expected), actual);
+    }
+}
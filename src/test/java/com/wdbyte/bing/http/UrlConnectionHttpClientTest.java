@@ -0,0 +1,216 @@
+package com.wdbyte.bing.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 使用本地 HttpServer 作为桩服务测试重试、Retry-After、gzip 和 304
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class UrlConnectionHttpClientTest {
+
+    private HttpServer server;
+    /**
+     * 每个请求的客户端端口，端口相同说明复用了连接
+     */
+    private final List<Integer> clientPorts = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void retriesServerErrors() throws IOException {
+        AtomicInteger hits = new AtomicInteger();
+        handle("/retry", exchange -> {
+            if (hits.incrementAndGet() < 3) {
+                send(exchange, 503, "busy");
+            } else {
+                send(exchange, 200, "ok");
+            }
+        });
+        HttpResponse<String> response = client(3).get(request("/retry"), UrlConnectionHttpClientTest::readString);
+        assertEquals(200, response.getStatus());
+        assertEquals("ok", response.getBody());
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void givesUpAfterMaxRetries() {
+        AtomicInteger hits = new AtomicInteger();
+        handle("/down", exchange -> {
+            hits.incrementAndGet();
+            send(exchange, 500, "down");
+        });
+        try {
+            client(2).get(request("/down"), UrlConnectionHttpClientTest::readString);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("500"));
+        }
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() {
+        AtomicInteger hits = new AtomicInteger();
+        handle("/missing", exchange -> {
+            hits.incrementAndGet();
+            send(exchange, 404, "missing");
+        });
+        try {
+            client(3).get(request("/missing"), UrlConnectionHttpClientTest::readString);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("404"));
+        }
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void waitsForRetryAfter() throws IOException {
+        AtomicInteger hits = new AtomicInteger();
+        handle("/limited", exchange -> {
+            if (hits.incrementAndGet() == 1) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 429, "slow down");
+            } else {
+                send(exchange, 200, "ok");
+            }
+        });
+        long start = System.nanoTime();
+        HttpResponse<String> response = client(1).get(request("/limited"), UrlConnectionHttpClientTest::readString);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals("ok", response.getBody());
+        assertEquals(2, hits.get());
+        // 退避基数只有 1ms，等待时间来自 Retry-After
+        assertTrue("elapsed:" + elapsedMillis, elapsedMillis >= 1000);
+    }
+
+    @Test
+    public void decodesGzip() throws IOException {
+        String text = String.join(",", Collections.nCopies(200, "bing wallpaper"));
+        handle("/gzip", exchange -> {
+            assertEquals("gzip", exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(text.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            send(exchange, 200, compressed.toByteArray());
+        });
+        HttpResponse<String> response = client(0).get(request("/gzip"), UrlConnectionHttpClientTest::readString);
+        assertEquals(text, response.getBody());
+    }
+
+    @Test
+    public void returnsNotModified() throws IOException {
+        handle("/api", exchange -> {
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                send(exchange, 200, "body");
+            }
+        });
+        UrlConnectionHttpClient client = client(0);
+        HttpResponse<String> first = client.get(request("/api"), UrlConnectionHttpClientTest::readString);
+        assertEquals("body", first.getBody());
+        assertEquals("\"v1\"", first.getValidator().getEtag());
+
+        HttpRequest conditional = request("/api").conditional(first.getValidator());
+        HttpResponse<String> second = client.get(conditional, UrlConnectionHttpClientTest::readString);
+        assertTrue(second.isNotModified());
+        assertNull(second.getBody());
+        assertEquals("body", client.get(request("/api"), UrlConnectionHttpClientTest::readString).getBody());
+    }
+
+    @Test
+    public void reusesConnectionAfterDiscardedResponse() throws IOException {
+        // HttpServer 在 304 之后总会关闭连接，这里用带响应体的 503 验证丢弃响应后连接仍被复用
+        AtomicInteger hits = new AtomicInteger();
+        handle("/reuse", exchange -> {
+            if (hits.incrementAndGet() < 3) {
+                send(exchange, 503, String.join(",", Collections.nCopies(1000, "busy")));
+            } else {
+                send(exchange, 200, "ok");
+            }
+        });
+        assertEquals("ok", client(3).get(request("/reuse"), UrlConnectionHttpClientTest::readString).getBody());
+        assertEquals(3, clientPorts.size());
+        assertEquals(1, clientPorts.stream().distinct().count());
+    }
+
+    private UrlConnectionHttpClient client(int maxRetries) {
+        return new UrlConnectionHttpClient(2_000, 5_000, maxRetries, 1);
+    }
+
+    private HttpRequest request(String path) {
+        return new HttpRequest("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+            + path);
+    }
+
+    private void handle(String path, HttpHandler handler) {
+        server.createContext(path, exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            try {
+                handler.handle(exchange);
+            } catch (AssertionError e) {
+                send(exchange, 400, e.toString());
+            }
+        });
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4 * 1024];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            out.write(buffer, 0, len);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package com.wdbyte.bing.like;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 计数键的编码和排行
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeCounterTest {
+
+    @Test
+    public void keyRoundTrip() {
+        long key = LikeCounter.key("en-US", "2026-10-16");
+        assertEquals("en-us", LikeCounter.getRegion(key));
+        assertEquals(LocalDate.parse("2026-10-16").toEpochDay(), LikeCounter.getEpochDay(key));
+        assertEquals(key, LikeCounter.key("en-us", "2026-10-16"));
+        assertNotEquals(key, LikeCounter.key("zh-cn", "2026-10-16"));
+        assertNotEquals(key, LikeCounter.key("en-us", "2026-10-15"));
+
+        long shortKey = LikeCounter.key("de", "1970-01-01");
+        assertEquals("de", LikeCounter.getRegion(shortKey));
+        assertEquals(0, LikeCounter.getEpochDay(shortKey));
+    }
+
+    @Test
+    public void rejectsInvalidKeys() {
+        for (String region : new String[] {null, "", "en-us1", "中文"}) {
+            try {
+                LikeCounter.key(region, "2026-10-16");
+                fail("expected IllegalArgumentException,region:" + region);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("invalid region"));
+            }
+        }
+        try {
+            LikeCounter.key("en-us", "1969-12-31");
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("invalid epoch day"));
+        }
+    }
+
+    @Test
+    public void topOrdersByCountThenNewestDate() {
+        Map<Long, Long> snapshot = new HashMap<>();
+        snapshot.put(LikeCounter.key("en-us", "2026-10-01"), 5L);
+        snapshot.put(LikeCounter.key("en-us", "2026-10-02"), 9L);
+        snapshot.put(LikeCounter.key("en-us", "2026-10-03"), 5L);
+        snapshot.put(LikeCounter.key("en-us", "2026-10-04"), 1L);
+        snapshot.put(LikeCounter.key("en-us", "2026-10-05"), 0L);
+        snapshot.put(LikeCounter.key("zh-cn", "2026-10-06"), 100L);
+
+        assertEquals("2026-10-02:9,2026-10-03:5,2026-10-01:5", format(LikeCounter.top(snapshot, "en-us", 3)));
+        assertEquals("2026-10-02:9,2026-10-03:5,2026-10-01:5,2026-10-04:1",
+            format(LikeCounter.top(snapshot, "EN-US", 10)));
+        assertEquals("2026-10-06:100", format(LikeCounter.top(snapshot, "zh-cn", 10)));
+        assertTrue(LikeCounter.top(snapshot, "en-us", 0).isEmpty());
+    }
+
+    @Test
+    public void countsPerRegionAndDate() {
+        LikeCounter counter = new LikeCounter();
+        assertEquals(1, counter.increment("en-us", "2026-10-16"));
+        assertEquals(2, counter.increment("EN-US", "2026-10-16"));
+        assertEquals(1, counter.increment("zh-cn", "2026-10-16"));
+        assertEquals(2, counter.get("en-us", "2026-10-16"));
+        assertEquals(0, counter.get("en-us", "2026-10-15"));
+        assertEquals("en-us", counter.top("en-us", 1).get(0).getRegion());
+    }
+
+    private static String format(List<LikeCounter.Entry> entries) {
+        return entries.stream().map(entry -> entry.getDate() + ":" + entry.getCount())
+            .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,98 @@
+package com.wdbyte.bing.like;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 日志重放：同一个键以最后一条为准，截掉不完整的尾部，压缩后重放结果不变
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeLogTest {
+
+    private static final long A = LikeCounter.key("en-us", "2026-10-15");
+    private static final long B = LikeCounter.key("en-us", "2026-10-16");
+    private static final long C = LikeCounter.key("zh-cn", "2026-10-16");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path;
+
+    @Before
+    public void setUp() {
+        path = folder.getRoot().toPath().resolve("likes/likes.log");
+    }
+
+    @Test
+    public void replaysLastRecordPerKey() throws IOException {
+        try (LikeLog log = LikeLog.open(path, new HashMap<>())) {
+            log.append(counts(A, 1, B, 2));
+            log.append(counts(A, 3));
+        }
+        assertEquals(counts(A, 3, B, 2), LikeLog.read(path));
+        assertEquals(4 + 3 * 16, Files.size(path));
+    }
+
+    @Test
+    public void truncatesPartialTail() throws IOException {
+        try (LikeLog log = LikeLog.open(path, new HashMap<>())) {
+            log.append(counts(A, 1, B, 2));
+        }
+        // 写入一条记录的中途退出
+        Files.write(path, new byte[] {0, 0, 0, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        Map<Long, Long> replayed = new HashMap<>();
+        try (LikeLog log = LikeLog.open(path, replayed)) {
+            assertEquals(counts(A, 1, B, 2), replayed);
+            assertEquals(2, log.getRecords());
+            assertEquals(4 + 2 * 16, Files.size(path));
+            log.append(counts(B, 5));
+        }
+        assertEquals(counts(A, 1, B, 5), LikeLog.read(path));
+    }
+
+    @Test
+    public void compactKeepsOneRecordPerKey() throws IOException {
+        try (LikeLog log = LikeLog.open(path, new HashMap<>())) {
+            for (long i = 1; i <= 10; i++) {
+                log.append(counts(A, i, B, i * 2));
+            }
+            assertEquals(20, log.getRecords());
+            log.compact(counts(A, 10, B, 20));
+            assertEquals(2, log.getRecords());
+            assertEquals(4 + 2 * 16, Files.size(path));
+            log.append(counts(C, 1));
+        }
+        Map<Long, Long> replayed = new HashMap<>();
+        try (LikeLog log = LikeLog.open(path, replayed)) {
+            assertEquals(counts(A, 10, B, 20, C, 1), replayed);
+            assertEquals(3, log.getRecords());
+        }
+    }
+
+    @Test
+    public void readsMissingLogAsEmpty() throws IOException {
+        assertEquals(new HashMap<Long, Long>(), LikeLog.read(path));
+    }
+
+    private static Map<Long, Long> counts(long... keyValues) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            counts.put(keyValues[i], keyValues[i + 1]);
+        }
+        return counts;
+    }
+}
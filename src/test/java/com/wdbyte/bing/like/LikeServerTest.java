@@ -0,0 +1,106 @@
+package com.wdbyte.bing.like;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 点赞接口：范围内的地区和日期正常计数，超出范围、格式不对或者未知地区返回 400
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LikeService service;
+    private ExecutorService executor;
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        service = LikeService.open(folder.getRoot().toPath().resolve("likes.log"));
+        // 归档从 2026-10-01 开始，当前 UTC 日期 2026-10-16，最晚接受 2026-10-17
+        LikeTargets targets = new LikeTargets(Collections.singletonMap("en-us", LocalDate.parse("2026-10-01")),
+            Clock.fixed(Instant.parse("2026-10-16T12:00:00Z"), ZoneOffset.UTC));
+        executor = Executors.newSingleThreadExecutor();
+        server = LikeServer.start(service, targets, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            executor);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        executor.shutdownNow();
+        service.close();
+    }
+
+    @Test
+    public void countsDatesInRange() throws IOException {
+        assertEquals("200 {\"count\":1}", request("POST", "region=en-us&date=2026-10-17"));
+        assertEquals("200 {\"count\":2}", request("POST", "region=EN-US&date=2026-10-17"));
+        assertEquals("200 {\"count\":1}", request("POST", "region=en-us&date=2026-10-01"));
+        assertEquals("200 {\"count\":2}", request("GET", "region=en-us&date=2026-10-17"));
+        assertEquals(2, service.get("en-us", "2026-10-17"));
+    }
+
+    @Test
+    public void rejectsDatesOutOfRange() throws IOException {
+        assertEquals("400 {\"error\":\"date out of range:2026-09-30\"}",
+            request("POST", "region=en-us&date=2026-09-30"));
+        assertEquals("400 {\"error\":\"date out of range:2026-10-18\"}",
+            request("POST", "region=en-us&date=2026-10-18"));
+        assertEquals("400 {\"error\":\"date out of range:2026-10-18\"}",
+            request("GET", "region=en-us&date=2026-10-18"));
+        assertEquals(0, service.get("en-us", "2026-10-18"));
+        assertEquals(0, service.flush());
+    }
+
+    @Test
+    public void rejectsMalformedRequests() throws IOException {
+        assertEquals("400 {\"error\":\"unknown region:zh-cn\"}", request("POST", "region=zh-cn&date=2026-10-16"));
+        assertEquals("400 {\"error\":\"missing parameter:date\"}", request("POST", "region=en-us"));
+        assertEquals("400 {\"error\":\"missing parameter:region\"}", request("GET", "date=2026-10-16"));
+        assertTrue(request("POST", "region=en-us&date=2026-13-01").startsWith("400 {\"error\":"));
+    }
+
+    private String request(String method, String query) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/api/love?" + query);
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        try (InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] bytes = new byte[1024];
+            int length;
+            while ((length = in.read(bytes)) > 0) {
+                out.write(bytes, 0, length);
+            }
+            return status + " " + new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.wdbyte.bing.like;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 持久化只追加有变化的键，重新打开后恢复计数
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class LikeServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path;
+
+    @Before
+    public void setUp() {
+        path = folder.getRoot().toPath().resolve("likes.log");
+    }
+
+    @Test
+    public void flushAppendsOnlyChangedKeys() throws IOException {
+        try (LikeService service = LikeService.open(path)) {
+            service.increment("en-us", "2026-10-15");
+            service.increment("en-us", "2026-10-15");
+            service.increment("en-us", "2026-10-16");
+            assertEquals(2, service.flush());
+            assertEquals(4 + 2 * 16, Files.size(path));
+
+            assertEquals(0, service.flush());
+            assertEquals(4 + 2 * 16, Files.size(path));
+
+            service.increment("en-us", "2026-10-16");
+            assertEquals(1, service.flush());
+            assertEquals(4 + 3 * 16, Files.size(path));
+        }
+        // close 时没有新的变化
+        assertEquals(4 + 3 * 16, Files.size(path));
+    }
+
+    @Test
+    public void restoresCountsOnOpen() throws IOException {
+        try (LikeService service = LikeService.open(path)) {
+            service.increment("en-us", "2026-10-16");
+            service.increment("zh-cn", "2026-10-16");
+        }
+        try (LikeService service = LikeService.open(path)) {
+            assertEquals(1, service.get("en-us", "2026-10-16"));
+            assertEquals(2, service.increment("zh-cn", "2026-10-16"));
+            assertEquals(1, service.flush());
+        }
+        try (LikeService service = LikeService.open(path)) {
+            assertEquals(2, service.get("zh-cn", "2026-10-16"));
+            assertEquals(0, service.flush());
+        }
+    }
+}
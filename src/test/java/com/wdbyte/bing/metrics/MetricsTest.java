@@ -0,0 +1,107 @@
+package com.wdbyte.bing.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 指标的 JSON 报告和 Prometheus 文本格式
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class MetricsTest {
+
+    private static final String ODD_REGION = "a\"b\\c\nd";
+
+    @Before
+    public void setUp() throws Exception {
+        Metrics.reset();
+        Metrics.setRegion("en-us");
+        Metrics.increment(Metrics.FILES_WRITTEN);
+        Metrics.increment(Metrics.FILES_WRITTEN);
+        Metrics.add(Metrics.BYTES_WRITTEN, 100);
+        Metrics.time("fetch", () -> {
+        });
+        Metrics.setRegion("zh-cn");
+        Metrics.increment(Metrics.FILES_WRITTEN);
+        Metrics.setRegion(ODD_REGION);
+        Metrics.increment("schedule-retries");
+        Metrics.setRegion(null);
+        Metrics.increment(Metrics.HTTP_REQUESTS);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setRegion(null);
+        Metrics.reset();
+    }
+
+    @Test
+    public void prometheusText() {
+        List<String> lines = Arrays.asList(Metrics.toPrometheus().split("\n"));
+        assertTrue(lines.contains("# TYPE bing_run_duration_seconds gauge"));
+        assertTrue(lines.contains("# TYPE bing_phase_seconds summary"));
+        assertTrue(lines.contains("bing_phase_seconds_count{phase=\"fetch\",region=\"en-us\"} 1"));
+        assertTrue(lines.contains("# TYPE bing_phase_max_seconds gauge"));
+        assertTrue(lines.contains("# TYPE bing_files_written_total counter"));
+        assertTrue(lines.contains("bing_files_written_total{region=\"en-us\"} 2"));
+        assertTrue(lines.contains("bing_files_written_total{region=\"zh-cn\"} 1"));
+        assertTrue(lines.contains("bing_bytes_written_total{region=\"en-us\"} 100"));
+        assertTrue(lines.contains("bing_http_requests_total{region=\"global\"} 1"));
+        // 指标名中的非法字符替换为下划线，标签值转义
+        assertTrue(lines.contains("# TYPE bing_schedule_retries_total counter"));
+        assertTrue(lines.contains("bing_schedule_retries_total{region=\"a\\\"b\\\\c\\nd\"} 1"));
+
+        // 每个指标前都声明了类型，且只声明一次
+        Set<String> declared = new HashSet<>();
+        for (String line : lines) {
+            if (line.startsWith("# TYPE ")) {
+                assertTrue(line, declared.add(line.split(" ")[2]));
+            } else {
+                String name = line.substring(0, line.indexOf(line.contains("{") ? '{' : ' '));
+                assertTrue(line, declared.contains(name.replaceAll("_(sum|count)$", "")));
+            }
+        }
+    }
+
+    @Test
+    public void jsonReport() {
+        JSONObject report = Metrics.toJson();
+        JSONObject counters = report.getJSONObject("counters");
+        assertEquals(3, counters.getLongValue(Metrics.FILES_WRITTEN));
+        assertEquals(100, counters.getLongValue(Metrics.BYTES_WRITTEN));
+        assertEquals(1, counters.getLongValue(Metrics.HTTP_REQUESTS));
+        assertEquals(1, report.getJSONObject("timers").getJSONObject("fetch").getLongValue("count"));
+
+        JSONObject regions = report.getJSONObject("regions");
+        assertEquals(new ArrayList<>(Arrays.asList(ODD_REGION, "en-us", Metrics.GLOBAL, "zh-cn")),
+            new ArrayList<>(regions.keySet()));
+        assertEquals(2, regions.getJSONObject("en-us").getJSONObject("counters").getLongValue(Metrics.FILES_WRITTEN));
+        assertEquals(1, regions.getJSONObject("zh-cn").getJSONObject("counters").getLongValue(Metrics.FILES_WRITTEN));
+        assertTrue(regions.getJSONObject("zh-cn").getJSONObject("timers").isEmpty());
+        assertTrue(report.getLongValue("durationMillis") >= 0);
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        Metrics.reset();
+        JSONObject report = Metrics.toJson();
+        assertTrue(report.getJSONObject("counters").isEmpty());
+        assertTrue(report.getJSONObject("timers").isEmpty());
+        assertTrue(report.getJSONObject("regions").isEmpty());
+        assertEquals("# TYPE bing_run_duration_seconds gauge", Metrics.toPrometheus().split("\n")[0]);
+        assertFalse(Metrics.toPrometheus().contains("_total"));
+    }
+}
@@ -0,0 +1,222 @@
+package com.wdbyte.bing.schedule;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.wdbyte.bing.RegionContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用模拟时钟驱动 {@link RolloverScheduler#runUntil(Instant)}，休眠直接把时钟拨到目标时刻
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class RolloverSchedulerTest {
+
+    private static final Duration ROLLOVER_DELAY = Duration.ofMinutes(2);
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(5);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+    private static final Duration RETRY_WINDOW = Duration.ofHours(6);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MutableClock clock;
+    /**
+     * 每次休眠的目标时刻
+     */
+    private final List<Instant> sleeps = new ArrayList<>();
+    /**
+     * 每次更新的地区和时刻
+     */
+    private final List<String> updates = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        System.setProperty("bing.metrics.report", folder.newFile("report.json").toString());
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("bing.metrics.report");
+    }
+
+    @Test
+    public void fetchesAtLocalMidnightOfEachZone() {
+        // 2026-11-01 美国结束夏令时，洛杉矶零点从 07:00Z 变成 08:00Z
+        clock = new MutableClock(Instant.parse("2026-10-31T12:00:00Z"));
+        RolloverScheduler scheduler = scheduler(context -> {
+            updates.add(context.getRegion() + "@" + clock.instant());
+            return rolledOver(context);
+        });
+        scheduler.add(RegionContext.of("en-us"));
+        scheduler.add(RegionContext.of("zh-cn"));
+        scheduler.runUntil(Instant.parse("2026-11-02T12:00:00Z"));
+
+        assertEquals(Arrays.asList(
+            "en-us@2026-10-31T12:00:00Z",
+            "zh-cn@2026-10-31T12:00:00Z",
+            "zh-cn@2026-10-31T16:02:00Z",
+            "en-us@2026-11-01T07:02:00Z",
+            "zh-cn@2026-11-01T16:02:00Z",
+            "en-us@2026-11-02T08:02:00Z"), updates);
+        assertEquals(Arrays.asList(Instant.parse("2026-11-02T16:02:00Z"), Instant.parse("2026-11-03T08:02:00Z")),
+            dues(scheduler));
+        for (RolloverScheduler.Task task : scheduler.getTasks()) {
+            assertEquals(0, task.getAttempt());
+        }
+    }
+
+    @Test
+    public void backsOffWithinJitterBounds() {
+        clock = new MutableClock(Instant.parse("2026-10-16T08:00:00Z"));
+        List<Instant> calls = new ArrayList<>();
+        RolloverScheduler scheduler = scheduler(context -> {
+            calls.add(clock.instant());
+            return notRolledOver(context);
+        });
+        scheduler.add(RegionContext.of("en-us"));
+        scheduler.runUntil(Instant.parse("2026-10-16T14:00:00Z"));
+
+        assertTrue(calls.size() > 5);
+        for (int attempt = 0; attempt + 1 < calls.size(); attempt++) {
+            long delay = Duration.between(calls.get(attempt), calls.get(attempt + 1)).toMillis();
+            long base = Math.min(RETRY_DELAY.toMillis() << attempt, MAX_RETRY_DELAY.toMillis());
+            assertTrue("attempt:" + attempt + ",delay:" + delay, delay >= (long)(base * 0.8));
+            assertTrue("attempt:" + attempt + ",delay:" + delay, delay <= (long)(base * 1.2));
+        }
+        assertEquals(calls.subList(1, calls.size()), sleeps.subList(1, sleeps.size()));
+    }
+
+    @Test
+    public void givesUpAtRetryWindow() {
+        Instant start = Instant.parse("2026-10-16T08:00:00Z");
+        clock = new MutableClock(start);
+        List<Instant> calls = new ArrayList<>();
+        RolloverScheduler scheduler = scheduler(context -> {
+            calls.add(clock.instant());
+            // 网络错误和没有新图片一样重试
+            if (calls.size() % 2 == 0) {
+                throw new IOException("connection reset");
+            }
+            return notRolledOver(context);
+        });
+        scheduler.add(RegionContext.of("en-us"));
+        scheduler.runUntil(Instant.parse("2026-10-17T00:00:00Z"));
+
+        Instant deadline = start.plus(RETRY_WINDOW);
+        Instant last = calls.get(calls.size() - 1);
+        assertFalse(last.isAfter(deadline));
+        // 再退避一次就超过重试窗口
+        long nextBase = Math.min(RETRY_DELAY.toMillis() << (calls.size() - 1), MAX_RETRY_DELAY.toMillis());
+        assertTrue(last.plusMillis((long)(nextBase * 1.2)).isAfter(deadline));
+
+        RolloverScheduler.Task next = scheduler.getTasks().get(0);
+        assertEquals(Instant.parse("2026-10-17T07:02:00Z"), next.getDue());
+        assertEquals(LocalDate.of(2026, 10, 18), next.getExpected());
+        assertEquals(0, next.getAttempt());
+    }
+
+    @Test
+    public void stopsRetryingOnceTodayArrives() {
+        clock = new MutableClock(Instant.parse("2026-10-16T07:02:00Z"));
+        List<Instant> calls = new ArrayList<>();
+        RolloverScheduler scheduler = scheduler(context -> {
+            calls.add(clock.instant());
+            return calls.size() < 3 ? notRolledOver(context) : rolledOver(context);
+        });
+        scheduler.add(RegionContext.of("en-us"));
+        scheduler.runUntil(Instant.parse("2026-10-17T00:00:00Z"));
+
+        assertEquals(3, calls.size());
+        RolloverScheduler.Task next = scheduler.getTasks().get(0);
+        assertEquals(Instant.parse("2026-10-17T07:02:00Z"), next.getDue());
+        assertEquals(LocalDate.of(2026, 10, 18), next.getExpected());
+        assertEquals(0, next.getAttempt());
+    }
+
+    private RolloverScheduler scheduler(RegionUpdater updater) {
+        Sleeper sleeper = deadline -> {
+            sleeps.add(deadline);
+            clock.set(deadline);
+        };
+        return new RolloverScheduler(clock, sleeper, updater, new Random(42), ROLLOVER_DELAY, RETRY_DELAY,
+            MAX_RETRY_DELAY, RETRY_WINDOW);
+    }
+
+    /**
+     * 已经换图时归档中最新的日期：接口的 enddate 是当地展示日期的下一天
+     */
+    private LocalDate rolledOver(RegionContext context) {
+        return localDate(context).plusDays(1);
+    }
+
+    /**
+     * 还没有换图时归档中最新的日期：前一天图片的 enddate，等于当地当天
+     */
+    private LocalDate notRolledOver(RegionContext context) {
+        return localDate(context);
+    }
+
+    private LocalDate localDate(RegionContext context) {
+        return LocalDate.from(clock.instant().atZone(RolloverScheduler.getZone(context.getRegion())));
+    }
+
+    private static List<Instant> dues(RolloverScheduler scheduler) {
+        List<Instant> dues = new ArrayList<>();
+        for (RolloverScheduler.Task task : scheduler.getTasks()) {
+            dues.add(task.getDue());
+        }
+        return dues;
+    }
+
+    /**
+     * 只在休眠时前进的时钟
+     */
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            if (instant.isAfter(now)) {
+                now = instant;
+            }
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
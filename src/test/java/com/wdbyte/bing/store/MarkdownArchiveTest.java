@@ -0,0 +1,81 @@
+package com.wdbyte.bing.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.wdbyte.bing.Images;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 归档的插入：新日期写在标题之后不重新渲染已有记录，中间插入按日期合并
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class MarkdownArchiveTest {
+
+    private static final String SEPARATOR = System.lineSeparator();
+    /**
+     * 手工编辑过的记录，没有 formatMarkdown 输出的行尾空格，重新渲染后会发生变化
+     */
+    private static final String OLD_LINES = "2026-10-10 | [Ten](https://cn.bing.com/th?id=OHR.Ten_UHD.jpg&pid=hp)"
+        + SEPARATOR + SEPARATOR
+        + "2026-10-01 | [One](https://cn.bing.com/th?id=OHR.One_UHD.jpg&pid=hp)" + SEPARATOR + SEPARATOR;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path bingPath;
+    private MarkdownArchive archive;
+
+    @Before
+    public void setUp() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        bingPath = dir.resolve("bing-wallpaper.md");
+        Files.write(bingPath, ("## Bing Wallpaper" + SEPARATOR + OLD_LINES).getBytes(StandardCharsets.UTF_8));
+        archive = new MarkdownArchive(bingPath, dir.resolve(".cache/bing-wallpaper.md.bin"));
+    }
+
+    @Test
+    public void prependsNewDatesWithoutRenderingExistingRecords() throws IOException {
+        Images newest = images("2026-10-12", "Twelve");
+        Images newer = images("2026-10-11", "Eleven");
+        assertEquals(2, archive.insert(Arrays.asList(newer, newest)));
+
+        String expected = "## Bing Wallpaper" + SEPARATOR
+            + newest.formatMarkdown() + SEPARATOR + SEPARATOR
+            + newer.formatMarkdown() + SEPARATOR + SEPARATOR
+            + OLD_LINES;
+        assertEquals(expected, new String(Files.readAllBytes(bingPath), StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("2026-10-12", "2026-10-11", "2026-10-10", "2026-10-01"), dates(archive.readAll()));
+        assertEquals(0, archive.insert(Arrays.asList(newest)));
+    }
+
+    @Test
+    public void mergesOlderDatesByDate() throws IOException {
+        assertEquals(2, archive.insert(Arrays.asList(images("2026-10-05", "Five"), images("2026-09-30", "Thirty"))));
+
+        assertEquals(Arrays.asList("2026-10-10", "2026-10-05", "2026-10-01", "2026-09-30"), dates(archive.readAll()));
+        assertEquals(Arrays.asList("2026-10-10", "2026-10-05", "2026-10-01", "2026-09-30"),
+            dates(new MarkdownArchive(bingPath, folder.getRoot().toPath().resolve("other.bin")).readAll()));
+        assertEquals("Five", archive.find("2026-10-05").get(0).getDesc());
+    }
+
+    private static Images images(String date, String name) {
+        return new Images(name, date, "https://cn.bing.com/th?id=OHR." + name + "_UHD.jpg&pid=hp");
+    }
+
+    private static List<String> dates(List<Images> imagesList) {
+        return imagesList.stream().map(Images::getDate).collect(Collectors.toList());
+    }
+}
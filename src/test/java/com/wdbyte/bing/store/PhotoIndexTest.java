@@ -0,0 +1,104 @@
+package com.wdbyte.bing.store;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import com.wdbyte.bing.Images;
+import com.wdbyte.bing.RegionContext;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按 OHR 编号跨地区分组：编号解析、主地区选择和按日期就近匹配
+ *
+ * @author niulang
+ * @date 2026/10/16
+ */
+public class PhotoIndexTest {
+
+    private static final String EN_URL = "https://cn.bing.com/th?id=OHR.CommonBlue_EN-US2760688799_UHD.jpg"
+        + "&rf=LaDigue_UHD.jpg&pid=hp&w=3840&h=2160&rs=1&c=4";
+    private static final String ZH_URL = "https://cn.bing.com/th?id=OHR.CommonBlue_ZH-CN8521430009_UHD.jpg"
+        + "&rf=LaDigue_UHD.jpg&pid=hp&w=3840&h=2160&rs=1&c=4";
+
+    private static final Images EN = new Images("Common blue butterfly, Devon, England", "2026-08-23", EN_URL);
+    private static final Images ZH = new Images("普通蓝灰蝶，德文郡，英格兰", "2026-08-22", ZH_URL);
+
+    @Test
+    public void parsesOhrId() {
+        assertEquals("CommonBlue", PhotoIndex.getOhrId(EN_URL));
+        assertEquals("CommonBlue", PhotoIndex.getOhrId(ZH_URL));
+        assertEquals("RainbowMarmot",
+            PhotoIndex.getOhrId("https://cn.bing.com/th?id=OHR.RainbowMarmot_ZH-CN4605973404_UHD.jpg"));
+        assertEquals("CommonBlue", PhotoIndex.getOhrId("/th?id=OHR.CommonBlue_en-gb2760688799_1920x1080.jpg"));
+        assertNull(PhotoIndex.getOhrId("https://cn.bing.com/az/hprichbg/rb/CommonBlue_EN-US2760688799_1920x1080.jpg"));
+        assertNull(PhotoIndex.getOhrId("https://cn.bing.com/th?id=OHR.CommonBlue_UHD.jpg"));
+        assertNull(PhotoIndex.getOhrId(null));
+    }
+
+    @Test
+    public void firstRegionInListIsPrimary() {
+        PhotoIndex index = build(new String[] {"en-us", "zh-cn"}, new Images[] {EN}, new Images[] {ZH});
+        assertEquals(1, index.size());
+        assertTrue(index.isPrimary("en-us", EN));
+        assertFalse(index.isPrimary("zh-cn", ZH));
+        assertEquals("en-us", index.getPrimaryRegion("zh-cn", ZH));
+        assertSame(EN, index.getPrimary("en-us", EN));
+        assertSame(EN, index.getPrimary("zh-cn", ZH));
+        assertEquals(Collections.singletonMap("zh-cn", ZH), index.getOtherVariants("en-us", EN));
+        assertEquals(Collections.singletonMap("en-us", EN), index.getOtherVariants("zh-cn", ZH));
+
+        PhotoIndex reversed = build(new String[] {"zh-cn", "en-us"}, new Images[] {ZH}, new Images[] {EN});
+        assertTrue(reversed.isPrimary("zh-cn", ZH));
+        assertSame(ZH, reversed.getPrimary("en-us", EN));
+    }
+
+    @Test
+    public void photosOnlyInOneRegionAreTheirOwnPrimary() {
+        Images zhOnly = new Images("大格洛克纳山山峰前的土拨鼠，奥地利", "2021-02-02",
+            "https://cn.bing.com/th?id=OHR.RainbowMarmot_ZH-CN4605973404_UHD.jpg");
+        Images legacy = new Images("Legacy", "2015-01-01",
+            "https://cn.bing.com/az/hprichbg/rb/Legacy_EN-US1234567890_1920x1080.jpg");
+        PhotoIndex index = build(new String[] {"en-us", "zh-cn"}, new Images[] {EN, legacy},
+            new Images[] {ZH, zhOnly});
+        assertEquals(2, index.size());
+        assertTrue(index.isPrimary("zh-cn", zhOnly));
+        assertSame(zhOnly, index.getPrimary("zh-cn", zhOnly));
+        assertTrue(index.getOtherVariants("zh-cn", zhOnly).isEmpty());
+        assertTrue(index.isPrimary("en-us", legacy));
+        assertTrue(index.getOtherVariants("en-us", legacy).isEmpty());
+    }
+
+    @Test
+    public void repeatedPhotoMatchesNearestDate() {
+        // 同一张照片在两个地区都出现了两次，各自匹配日期最接近的一条
+        Images enRepeat = new Images(EN.getDesc(), "2026-10-10", EN_URL);
+        Images zhRepeat = new Images(ZH.getDesc(), "2026-10-09", ZH_URL);
+        PhotoIndex index = build(new String[] {"en-us", "zh-cn"}, new Images[] {enRepeat, EN},
+            new Images[] {zhRepeat, ZH});
+        assertEquals(1, index.size());
+        assertSame(enRepeat, index.getPrimary("zh-cn", zhRepeat));
+        assertSame(EN, index.getPrimary("zh-cn", ZH));
+        Map<String, Images> others = index.getOtherVariants("en-us", enRepeat);
+        assertSame(zhRepeat, others.get("zh-cn"));
+        assertSame(ZH, index.getOtherVariants("en-us", EN).get("zh-cn"));
+    }
+
+    /**
+     * @param regions 按主地区优先级
+     * @param images  每个地区的记录，按日期倒序
+     */
+    private static PhotoIndex build(String[] regions, Images[]... images) {
+        ArchiveSession[] sessions = new ArchiveSession[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            sessions[i] = ArchiveSession.of(RegionContext.of(regions[i]), Arrays.asList(images[i]));
+        }
+        return PhotoIndex.build(Arrays.asList(sessions));
+    }
+}